@@ -0,0 +1,91 @@
+package searchengine.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Детерминированные страницы для бенчмарков.
+ * Слова выбираются из словаря по закону Ципфа, как в живом тексте: немного частых слов
+ * и длинный хвост редких; в разметке есть заголовки, абзацы, ссылки и скрипты.
+ */
+final class BenchmarkPages {
+
+    private static final String[] RUSSIAN = (
+            "и в не на что с по это как он к а она из у за о же так все от было вы но мы " +
+            "магазин доставка цена товар заказ покупатель телефон смартфон экран камера батарея гарантия " +
+            "модель производитель характеристика память процессор корпус зарядка наушники аксессуар чехол " +
+            "скидка акция оплата курьер самовывоз склад наличие отзыв рейтинг сравнение каталог раздел " +
+            "исследование институт физика лаборатория эксперимент установка излучение плазма лазер волна " +
+            "публикация журнал конференция сотрудник отдел результат измерение частота мощность импульс " +
+            "леопард появление осетия предположить постоянно обитать район северный кавказ повторный " +
+            "быстро надёжно удобно современный новый лучший качественный официальный бесплатный ёмкий"
+    ).split(" ");
+
+    private static final String[] ENGLISH = (
+            "the of and to in a is that for it as was with be by on not he this are or " +
+            "store delivery price product order customer phone smartphone screen camera battery warranty " +
+            "model manufacturer specification memory processor case charger headphones accessory cover " +
+            "discount offer payment courier pickup warehouse stock review rating comparison catalog section " +
+            "research institute physics laboratory experiment facility radiation plasma laser wave " +
+            "publication journal conference employee department result measurement frequency power pulse " +
+            "leopard appearance ossetia suggest constantly live area northern caucasus repeated " +
+            "quickly reliable convenient modern new best quality official free capacious running"
+    ).split(" ");
+
+    private BenchmarkPages() {
+    }
+
+    // Текст примерно из words слов на языке "ru" или "en"
+    static String text(String language, int words, long seed) {
+        String[] vocabulary = "ru".equals(language) ? RUSSIAN : ENGLISH;
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(words * 8);
+        for (int i = 0; i < words; i++) {
+            String word = vocabulary[zipf(random, vocabulary.length)];
+            if (i % 12 == 0) {
+                text.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                text.append(word);
+            }
+            text.append(i % 12 == 11 ? ". " : i % 5 == 4 ? ", " : " ");
+        }
+        return text.toString();
+    }
+
+    // HTML-страница с текстом из text() и links ссылками на тот же сайт
+    static String html(String language, int words, int links, long seed) {
+        Random random = new Random(seed);
+        StringBuilder html = new StringBuilder(words * 10 + links * 64);
+        html.append("<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>")
+                .append(text(language, 8, seed))
+                .append("</title><script>window.dataLayer = window.dataLayer || [];</script>")
+                .append("<style>.item{margin:0 4px}</style></head><body><nav><ul>");
+        for (int i = 0; i < links; i++) {
+            html.append("<li><a href=\"/catalog/").append(random.nextInt(10_000))
+                    .append("/?page=").append(i).append("\">").append(text(language, 2, seed + i)).append("</a></li>");
+        }
+        html.append("</ul></nav><main>");
+        int paragraph = Math.max(1, words / 40);
+        for (int from = 0; from < words; from += paragraph) {
+            html.append("<h2>").append(text(language, 4, seed + from)).append("</h2><p class=\"item\">")
+                    .append(text(language, Math.min(paragraph, words - from), seed * 31 + from))
+                    .append("</p>");
+        }
+        html.append("</main><footer>&copy; 2024 <a href=\"mailto:info@example.com\">info</a>")
+                .append(" <a href=\"tel:+78000000000\">8 800</a></footer></body></html>");
+        return html.toString();
+    }
+
+    private static int zipf(Random random, int size) {
+        // Обратное преобразование для распределения с показателем 1: P(k) ~ 1/k
+        double harmonic = Math.log(size) + 0.5772;
+        double target = random.nextDouble() * harmonic;
+        double sum = 0;
+        for (int k = 1; k <= size; k++) {
+            sum += 1.0 / k;
+            if (sum >= target) {
+                return k - 1;
+            }
+        }
+        return size - 1;
+    }
+}
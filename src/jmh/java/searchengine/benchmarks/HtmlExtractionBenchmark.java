@@ -0,0 +1,87 @@
+package searchengine.benchmarks;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import searchengine.TextProcessor;
+import searchengine.utils.HtmlScanner;
+import searchengine.utils.UrlNormalizer;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Извлечение текста и ссылок из HTML, как это делает обход сайта.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HtmlExtractionBenchmark {
+
+    private static final String BASE_URL = "https://www.example.com/catalog/";
+    private static final URI BASE_URI = URI.create(BASE_URL);
+
+    @Param({"ru", "en"})
+    private String language;
+
+    @Param({"500", "5000"})
+    private int words;
+
+    private String html;
+    private Document document;
+
+    @Setup
+    public void setUp() {
+        html = BenchmarkPages.html(language, words, 150, 7);
+        document = Jsoup.parse(html, BASE_URL);
+    }
+
+    @Benchmark
+    public Document parse() {
+        return Jsoup.parse(html, BASE_URL);
+    }
+
+    @Benchmark
+    public String parseAndExtractText() {
+        return Jsoup.parse(html, BASE_URL).text();
+    }
+
+    @Benchmark
+    public String textProcessorRemoveHtmlTags() {
+        return TextProcessor.removeHtmlTags(html);
+    }
+
+    // Потоковый разбор обхода: текст и ссылки за один проход, без дерева документа
+    @Benchmark
+    public void scanTextAndLinks(Blackhole blackhole) {
+        HtmlScanner scanner = new HtmlScanner();
+        scanner.feed(html);
+        blackhole.consume(scanner.text());
+        for (String href : scanner.links()) {
+            blackhole.consume(UrlNormalizer.normalize(UrlNormalizer.resolve(BASE_URI, href)));
+        }
+    }
+
+    // Разбор уже готового документа не учитывается — только выборка и нормализация ссылок
+    @Benchmark
+    public void extractLinks(Blackhole blackhole) {
+        for (Element link : document.select("a[href]")) {
+            blackhole.consume(UrlNormalizer.normalize(link.absUrl("href")));
+        }
+    }
+}
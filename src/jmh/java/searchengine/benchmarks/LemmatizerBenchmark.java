@@ -0,0 +1,69 @@
+package searchengine.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import searchengine.Lemmatizer;
+import searchengine.TextProcessor;
+import searchengine.config.LemmaSettings;
+import searchengine.services.LemmaService;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Лемматизация текста страницы: устаревшие Lemmatizer и TextProcessor
+ * и LemmaService, через который идёт индексация.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LemmatizerBenchmark {
+
+    @Param({"ru", "en"})
+    private String language;
+
+    // Порядка обычной страницы магазина и длинной статьи
+    @Param({"500", "5000"})
+    private int words;
+
+    private String text;
+    private String html;
+    private Lemmatizer lemmatizer;
+    private LemmaService lemmaService;
+
+    @Setup
+    public void setUp() {
+        text = BenchmarkPages.text(language, words, 42);
+        html = BenchmarkPages.html(language, words, 50, 42);
+        lemmaService = new LemmaService(new LemmaSettings());
+        lemmatizer = new Lemmatizer(language, lemmaService.getWordAnalyzer());
+    }
+
+    @Benchmark
+    public Map<String, Integer> lemmatizerGetLemmas() {
+        return lemmatizer.getLemmas(text);
+    }
+
+    // processText сам удаляет разметку, поэтому получает HTML
+    @Benchmark
+    public Map<String, Integer> textProcessorProcessText() {
+        return TextProcessor.processText(html, language, lemmaService.getWordAnalyzer());
+    }
+
+    @Benchmark
+    public Map<String, Integer> lemmaServiceCollectLemmas() {
+        return lemmaService.collectLemmas(text);
+    }
+}
@@ -0,0 +1,146 @@
+package searchengine.benchmarks;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import searchengine.config.LemmaSettings;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import searchengine.repository.IndexJdbcRepository;
+import searchengine.repository.LemmaJdbcRepository;
+import searchengine.repository.PageJdbcRepository;
+import searchengine.services.LemmaService;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запись пакета страниц, лемм и строк индекса через JDBC-репозитории во встроенную H2
+ * в режиме MySQL. Абсолютные числа не совпадут с MySQL, но регрессии в числе запросов
+ * и размере пакетов видны и здесь.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+
+    // Размер пакета PageWriter по умолчанию
+    @Param({"100"})
+    private int batchSize;
+
+    private JdbcTemplate jdbcTemplate;
+    private PageJdbcRepository pageRepository;
+    private LemmaJdbcRepository lemmaRepository;
+    private IndexJdbcRepository indexRepository;
+    private Site site;
+    private List<String> contents;
+    private List<TreeMap<String, Integer>> lemmasPerPage;
+    private int nextPath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("benchmark-schema.sql"));
+        }
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        pageRepository = new PageJdbcRepository(namedJdbcTemplate);
+        lemmaRepository = new LemmaJdbcRepository(namedJdbcTemplate);
+        indexRepository = new IndexJdbcRepository(jdbcTemplate);
+
+        jdbcTemplate.update("INSERT INTO site (status, status_time, url, name) " +
+                "VALUES ('INDEXING', CURRENT_TIMESTAMP, 'https://www.example.com', 'Example')");
+        site = new Site();
+        site.setId(jdbcTemplate.queryForObject("SELECT id FROM site", Integer.class));
+        site.setUrl("https://www.example.com");
+
+        LemmaService lemmaService = new LemmaService(new LemmaSettings());
+        contents = new ArrayList<>();
+        lemmasPerPage = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            String language = i % 2 == 0 ? "ru" : "en";
+            contents.add(BenchmarkPages.html(language, 800, 60, i));
+            lemmasPerPage.add(new TreeMap<>(lemmaService.collectLemmas(BenchmarkPages.text(language, 800, i))));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void clearTables() {
+        jdbcTemplate.update("DELETE FROM `index`");
+        jdbcTemplate.update("DELETE FROM lemma");
+        jdbcTemplate.update("DELETE FROM page");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    // Пакет новых страниц, как его пишет PageWriter
+    @Benchmark
+    public void insertPages() {
+        pageRepository.insertAll(nextPages());
+    }
+
+    // Полный путь пакета: страницы, частоты лемм, идентификаторы лемм и строки индекса, как в PageIndexer
+    @Benchmark
+    public int insertPagesWithIndex() {
+        List<Page> pages = nextPages();
+        pageRepository.insertAll(pages);
+        Map<String, Integer> pageIds = pageRepository.findIds(site.getId(), pages.stream().map(Page::getPath).toList());
+
+        TreeMap<String, Integer> increments = new TreeMap<>();
+        for (TreeMap<String, Integer> lemmas : lemmasPerPage) {
+            lemmas.keySet().forEach(lemma -> increments.merge(lemma, 1, Integer::sum));
+        }
+        lemmaRepository.incrementFrequencies(site.getId(), increments);
+        Map<String, Integer> lemmaIds = lemmaRepository.findIds(site.getId(), increments.keySet());
+
+        List<IndexJdbcRepository.Row> rows = new ArrayList<>();
+        for (int i = 0; i < pages.size(); i++) {
+            int pageId = pageIds.get(pages.get(i).getPath());
+            lemmasPerPage.get(i).forEach((lemma, count) ->
+                    rows.add(new IndexJdbcRepository.Row(pageId, lemmaIds.get(lemma), count)));
+        }
+        indexRepository.insertAll(rows);
+        return rows.size();
+    }
+
+    private List<Page> nextPages() {
+        List<Page> pages = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            Page page = new Page();
+            page.setSite(site);
+            page.setPath("/catalog/item-" + nextPath++);
+            page.setCode(200);
+            page.setContent(contents.get(i));
+            page.setContentType("text/html; charset=utf-8");
+            pages.add(page);
+        }
+        return pages;
+    }
+}
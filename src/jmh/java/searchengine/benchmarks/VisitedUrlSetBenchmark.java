@@ -0,0 +1,92 @@
+package searchengine.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import searchengine.utils.VisitedUrlSet;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Конкуренция потоков обхода за множество посещённых URL.
+ * Потоки проверяют ссылки из общего набора страниц сайта: большая часть ссылок уже встречалась,
+ * как в навигации реального сайта. Число потоков задаётся -t, по умолчанию 8.
+ * Для сравнения — множество строк под общей блокировкой, как было в PageCrawler раньше,
+ * и ConcurrentHashMap со строками.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class VisitedUrlSetBenchmark {
+
+    private static final int DISTINCT_URLS = 1 << 18;
+
+    private String[] urls;
+    private VisitedUrlSet visitedUrls;
+    private Set<String> lockedSet;
+    private Set<String> concurrentSet;
+
+    @Setup(Level.Trial)
+    public void createUrls() {
+        urls = new String[DISTINCT_URLS];
+        for (int i = 0; i < DISTINCT_URLS; i++) {
+            urls[i] = "https://www.example.com/catalog/" + (i % 512) + "/item-" + i + "?page=" + (i % 7);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetSets() {
+        visitedUrls = new VisitedUrlSet(64L * 1024 * 1024, 0.25);
+        // Как в прежнем PageCrawler: обычный HashSet под synchronized
+        lockedSet = new HashSet<>();
+        concurrentSet = ConcurrentHashMap.newKeySet();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position = (int) (Thread.currentThread().threadId() * 7919);
+
+        int next() {
+            position = position * 1103515245 + 12345;
+            return (position >>> 8) & (DISTINCT_URLS - 1);
+        }
+    }
+
+    @Benchmark
+    public boolean visitedUrlSetAdd(Cursor cursor) {
+        return visitedUrls.add(urls[cursor.next()]);
+    }
+
+    // Проверка и вставка под synchronized на общем множестве
+    @Benchmark
+    public boolean lockedSetAdd(Cursor cursor) {
+        String url = urls[cursor.next()];
+        synchronized (lockedSet) {
+            if (lockedSet.contains(url)) {
+                return false;
+            }
+            return lockedSet.add(url);
+        }
+    }
+
+    @Benchmark
+    public boolean concurrentHashSetAdd(Cursor cursor) {
+        return concurrentSet.add(urls[cursor.next()]);
+    }
+}
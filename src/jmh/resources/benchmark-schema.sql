@@ -0,0 +1,50 @@
+-- Схема таблиц page, lemma и index для H2 в режиме совместимости с MySQL.
+-- Повторяет то, что Hibernate создаёт в MySQL по сущностям searchengine.model.
+DROP TABLE IF EXISTS `index`;
+DROP TABLE IF EXISTS lemma;
+DROP TABLE IF EXISTS page;
+DROP TABLE IF EXISTS site;
+
+CREATE TABLE site (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    status VARCHAR(32) NOT NULL,
+    status_time TIMESTAMP NOT NULL,
+    last_error CLOB,
+    url VARCHAR(500) NOT NULL UNIQUE,
+    name VARCHAR(500) NOT NULL
+);
+
+CREATE TABLE page (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    site_id INT NOT NULL,
+    path VARCHAR(500) NOT NULL,
+    code INT NOT NULL,
+    content CLOB NOT NULL,
+    content_compressed BLOB,
+    content_storage VARCHAR(16),
+    title VARCHAR(500),
+    text_compressed BLOB,
+    content_type VARCHAR(500),
+    etag VARCHAR(255),
+    last_modified VARCHAR(64),
+    content_hash BIGINT,
+    CONSTRAINT uk_page_site_path UNIQUE (site_id, path)
+);
+
+CREATE TABLE lemma (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    site_id INT NOT NULL,
+    lemma VARCHAR(500) NOT NULL,
+    frequency INT NOT NULL,
+    CONSTRAINT uk_lemma_site_lemma UNIQUE (site_id, lemma)
+);
+
+CREATE TABLE `index` (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    page_id INT NOT NULL,
+    lemma_id INT NOT NULL,
+    `rank` FLOAT NOT NULL,
+    positions VARBINARY(255),
+    CONSTRAINT uk_index_page_lemma UNIQUE (page_id, lemma_id)
+);
+CREATE INDEX idx_index_lemma ON `index` (lemma_id);
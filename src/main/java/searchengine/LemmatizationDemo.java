@@ -1,17 +1,16 @@
 package searchengine;
 
 import org.apache.lucene.morphology.LuceneMorphology;
-import org.apache.lucene.morphology.russian.RussianLuceneMorphology;
-import org.apache.lucene.morphology.english.EnglishLuceneMorphology;
+import searchengine.utils.MorphologyProvider;
 
 import java.util.List;
 
 public class LemmatizationDemo {
     public static void main(String[] args) {
         try {
-            // Создание лемматизаторов для русского и английского языков
-            LuceneMorphology russianMorphology = new RussianLuceneMorphology();
-            LuceneMorphology englishMorphology = new EnglishLuceneMorphology();
+            // Общие для процесса словари русского и английского языков
+            LuceneMorphology russianMorphology = MorphologyProvider.russian();
+            LuceneMorphology englishMorphology = MorphologyProvider.english();
 
             // Тестовые слова
             String russianWord = "леса"; // Русское слово
@@ -1,87 +1,56 @@
 package searchengine;
 
-import org.apache.lucene.morphology.LuceneMorphology;
-import org.apache.lucene.morphology.russian.RussianLuceneMorphology;
-import org.apache.lucene.morphology.english.EnglishLuceneMorphology;
+import searchengine.config.LemmaSettings;
+import searchengine.utils.MorphologyProvider;
+import searchengine.utils.TokenCounter;
+import searchengine.utils.Tokenizer;
+import searchengine.utils.WordAnalyzer;
 
-import java.io.IOException;
 import java.util.*;
 
 
 public class Lemmatizer {
-    private static final Set<String> EXCLUDED_PARTS_OF_SPEECH = new HashSet<>(Arrays.asList(
-            "PREP", "CONJ", "PRCL", "INTJ" // Предлоги, союзы, частицы, междометия
-    ));
-
-    private LuceneMorphology luceneMorphology;
-
-    public Lemmatizer(String language) {
-        try {
-            // Выбираем лемматизатор в зависимости от языка
-            if ("ru".equalsIgnoreCase(language)) {
-                luceneMorphology = new RussianLuceneMorphology();
-            } else if ("en".equalsIgnoreCase(language)) {
-                luceneMorphology = new EnglishLuceneMorphology();
-            } else {
-                throw new IllegalArgumentException("Unsupported language: " + language);
-            }
-        } catch (IOException e) {
-            // Обрабатываем исключения, связанные с загрузкой данных лемматизатора
-            System.err.println("Error initializing lemmatizer: " + e.getMessage());
-            e.printStackTrace();
-        }
+    private final String language;
+    private final WordAnalyzer analyzer;
+
+    // analyzer — общий разбор слов с кешем, например LemmaService.getWordAnalyzer()
+    public Lemmatizer(String language, WordAnalyzer analyzer) {
+        // Словарь не загружается заново: все лемматизаторы используют общие экземпляры морфологии
+        MorphologyProvider.forLanguage(language);
+        this.language = language.toLowerCase(Locale.ROOT);
+        this.analyzer = analyzer;
     }
 
     public Map<String, Integer> getLemmas(String text) {
-        // Очищаем текст от всех небуквенных символов
-        text = text.replaceAll("[^a-zA-Zа-яА-ЯёЁ]", " "); // Заменяем все не-буквенные символы на пробелы
-        String[] words = text.split("\\s+"); // Разбиваем текст на слова
-        Map<String, Integer> lemmaCount = new HashMap<>();
-
-        for (String word : words) {
-            if (word.isEmpty()) {
-                continue; // Пропускаем пустые строки
+        boolean russian = "ru".equals(language);
+        // Один проход по тексту: слова в нижнем регистре попадают в счётчик без промежуточных строк
+        TokenCounter words = new TokenCounter();
+        new Tokenizer().tokenize(text, (chars, length, hash, cyrillic, start, end) -> {
+            if (cyrillic == russian) { // Слова другого языка пропускаем
+                words.add(chars, length, hash);
             }
+        });
 
-            // Приводим слово к нижнему регистру
-            word = word.toLowerCase();
-
-            // Лемматизация слова
-            List<String> lemmas = luceneMorphology.getNormalForms(word);
-            if (!lemmas.isEmpty()) {
-                String lemma = lemmas.get(0); // Берем первую лемму (основную)
-
-                // Получаем часть речи
-                List<String> grammemes = luceneMorphology.getMorphInfo(word);
-                for (String grammeme : grammemes) {
-                    // Если это не исключение, добавляем лемму в карту
-                    if (!isExcludedPartOfSpeech(grammeme)) {
-                        lemmaCount.put(lemma, lemmaCount.getOrDefault(lemma, 0) + 1);
-                    }
-                }
+        // Каждое уникальное слово лемматизируется один раз; служебные части речи отбрасываются
+        Map<String, Integer> lemmaCount = new HashMap<>();
+        words.forEach((word, count) -> {
+            String lemma = analyzer.lemmaOf(word);
+            if (lemma != null) {
+                lemmaCount.merge(lemma, count, Integer::sum);
             }
-        }
-
+        });
         return lemmaCount;
     }
 
-    private boolean isExcludedPartOfSpeech(String grammeme) {
-        // Проверяем, является ли часть речи исключением
-        for (String partOfSpeech : EXCLUDED_PARTS_OF_SPEECH) {
-            if (grammeme.contains(partOfSpeech)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     public static void main(String[] args) {
         // Тексты для обработки
         String russianText = "Повторное появление леопарда в Осетии позволяет предположить, что леопард постоянно обитает в некоторых районах Северного Кавказа.";
         String englishText = "The repeated appearance of the leopard in Ossetia suggests that the leopard constantly lives in some areas of the North Caucasus.";
 
+        WordAnalyzer analyzer = new WordAnalyzer(new LemmaSettings().getCacheSize());
+
         // Для русского текста
-        Lemmatizer ruLemmatizer = new Lemmatizer("ru");
+        Lemmatizer ruLemmatizer = new Lemmatizer("ru", analyzer);
         Map<String, Integer> ruResult = ruLemmatizer.getLemmas(russianText);
         System.out.println("Russian Lemmas:");
         for (Map.Entry<String, Integer> entry : ruResult.entrySet()) {
@@ -89,7 +58,7 @@ public class Lemmatizer {
         }
 
         // Для английского текста
-        Lemmatizer enLemmatizer = new Lemmatizer("en");
+        Lemmatizer enLemmatizer = new Lemmatizer("en", analyzer);
         Map<String, Integer> enResult = enLemmatizer.getLemmas(englishText);
         System.out.println("\nEnglish Lemmas:");
         for (Map.Entry<String, Integer> entry : enResult.entrySet()) {
@@ -2,17 +2,28 @@ package searchengine.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 @Configuration
+@EnableScheduling
 public class AppConfig {
 
     // Создаем бин ExecutorService
     @Bean
+    @Primary
     public ExecutorService executorService() {
         // Создаем пул потоков с заданным количеством потоков
         return Executors.newFixedThreadPool(4); // Используем 4 потока в пуле, можете настроить по вашему усмотрению
     }
+
+    // Поиск по индексам сайтов: запрос без сайта обходит их параллельно, по потоку на ядро
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService searchExecutor() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                Thread.ofPlatform().name("search-", 0).daemon(true).factory());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package searchengine.config;
+
+// Пул, в котором SiteCrawler выполняет загрузки страниц
+public enum CrawlMode {
+    VIRTUAL,   // Загрузка страниц в виртуальных потоках
+    FORK_JOIN  // Загрузка страниц в потоках ForkJoinPool
+}
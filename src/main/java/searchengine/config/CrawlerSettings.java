@@ -0,0 +1,118 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import searchengine.model.ContentStorage;
+
+import java.time.Duration;
+import java.util.List;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "indexing-settings.crawler")
+public class CrawlerSettings {
+
+    // Режим обхода сайтов
+    private CrawlMode mode = CrawlMode.VIRTUAL;
+
+    // Максимальное число одновременных запросов по всем сайтам
+    private int maxInFlight = 256;
+
+    // Максимальное число одновременных запросов к одному сайту
+    private int maxInFlightPerSite = 16;
+
+    private String userAgent = "Mozilla/5.0 (Windows; U; WindowsNT 5.1; en-US; rv1.8.1.6) Gecko/20070725 Firefox/2.0.0.6";
+
+    private String referrer = "http://www.google.com";
+
+    // Наибольшее число переходов от стартовой страницы, 0 — без ограничения
+    private int maxDepth = 0;
+
+    // Наибольшее число страниц одного сайта за обход, 0 — без ограничения
+    private int maxPagesPerSite = 0;
+
+    // Очередь страниц на запись в базу: при заполнении обход ждёт
+    private int writeQueueCapacity = 1000;
+
+    // Сколько страниц записывается одним пакетным INSERT
+    private int writeBatchSize = 100;
+
+    // Режим хранения тел страниц в таблице page
+    private ContentStorage contentStorage = ContentStorage.COMPRESSED;
+
+    // Хранилище посещённых URL каждого сайта
+    private Visited visited = new Visited();
+
+    // Ограничения загрузки одной страницы
+    private Fetch fetch = new Fetch();
+
+    // Контрольные точки обхода для продолжения после остановки или перезапуска
+    private Checkpoint checkpoint = new Checkpoint();
+
+    // Правила robots.txt и адреса из sitemap.xml
+    private Discovery discovery = new Discovery();
+
+    @Getter
+    @Setter
+    public static class Visited {
+        // Потолок памяти на один сайт: таблица URL растёт до него по мере обхода
+        private int memoryBudgetMb = 64;
+        // Четверть бюджета отдаётся фильтру Блума, который принимает URL после заполнения таблицы
+        private boolean bloomFilter = true;
+
+        public long memoryBudgetBytes() {
+            return memoryBudgetMb * 1024L * 1024L;
+        }
+
+        public double bloomShare() {
+            return bloomFilter ? 0.25 : 0;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Fetch {
+        // Тело длиннее обрезается: память на страницу в обработке не зависит от размера ответа
+        private int maxBodySizeKb = 5120;
+        // Ожидание соединения
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        // Время на весь ответ — и на заголовки, и на чтение тела
+        private Duration timeout = Duration.ofSeconds(30);
+        // Тело загружается только у этих типов; остальные страницы сохраняются по заголовкам ответа
+        private List<String> contentTypes = List.of("text/html", "application/xhtml+xml");
+
+        public int maxBodySizeBytes() {
+            return maxBodySizeKb * 1024;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Checkpoint {
+        private boolean enabled = true;
+        // Каталог файлов контрольных точек, по файлу на сайт
+        private String directory = "data/checkpoints";
+        // Как часто сохраняются очередь обхода и посещённые URL
+        private Duration interval = Duration.ofMinutes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Discovery {
+        // Запрещённые robots.txt ссылки не загружаются, Crawl-delay замедляет обход хоста
+        private boolean robotsTxt = true;
+        // Имя обходчика для выбора группы robots.txt; User-Agent запросов может быть другим
+        private String robotsAgent = "SearchEngineBot";
+        // Crawl-delay длиннее этого сокращается до него: сайт не может остановить обход на часы
+        private Duration maxCrawlDelay = Duration.ofSeconds(10);
+        // Адреса из sitemap.xml попадают в очередь обхода вместе со стартовой страницей
+        private boolean sitemaps = true;
+        // Сколько файлов sitemap (вместе с вложенными в sitemapindex) читается на сайт
+        private int maxSitemaps = 50;
+        // Сколько адресов страниц берётся из всех sitemap сайта
+        private int maxSitemapUrls = 100_000;
+    }
+}
@@ -0,0 +1,16 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "lemma-settings")
+public class LemmaSettings {
+
+    // Сколько разобранных слов держит LRU-кеш лемматизатора
+    private int cacheSize = 200_000;
+}
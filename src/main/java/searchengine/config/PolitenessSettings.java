@@ -0,0 +1,34 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "indexing-settings.politeness")
+public class PolitenessSettings {
+
+    // Лимиты по умолчанию для каждого хоста
+    private double requestsPerSecond = 2.0;
+    private int burst = 5;
+    private int maxConcurrent = 4;
+
+    // Индивидуальные лимиты для отдельных хостов
+    private List<HostLimit> hosts = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class HostLimit {
+        private String host;
+        // Незаданные значения берутся из лимитов по умолчанию
+        private Double requestsPerSecond;
+        private Integer burst;
+        private Integer maxConcurrent;
+    }
+}
@@ -0,0 +1,41 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "search-settings")
+public class SearchSettings {
+
+    // Леммы, встречающиеся на большей доле страниц сайта, не участвуют в поиске
+    private double maxLemmaPageRatio = 0.8;
+
+    // Длина сниппета в символах
+    private int snippetLength = 240;
+
+    // Каталог файлов сегментов поискового индекса
+    private String indexDirectory = "data/index";
+
+    // При большем числе сегментов сайта они сливаются в один в фоне
+    private int maxSegmentsPerSite = 4;
+
+    // Кеш ранжированной выдачи
+    private ResultCache resultCache = new ResultCache();
+
+    @Getter
+    @Setter
+    public static class ResultCache {
+        // Число запросов в кеше; 0 — кеш выключен
+        private int size = 500;
+        // Время жизни записи
+        private Duration ttl = Duration.ofMinutes(10);
+        // Сколько лучших страниц выдачи хранится на запрос; дальние страницы ранжируются заново
+        private int depth = 1000;
+    }
+}
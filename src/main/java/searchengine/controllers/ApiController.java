@@ -6,10 +6,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import searchengine.dto.statistics.StatisticsResponse;
 import searchengine.services.IndexingService;
+import searchengine.services.SearchService;
 import searchengine.services.StatisticsService;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
@@ -20,11 +23,14 @@ public class ApiController {
 
     private final StatisticsService statisticsService;
     private final IndexingService indexingService;
+    private final SearchService searchService;
     private final ExecutorService executorService;
 
-    public ApiController(StatisticsService statisticsService, IndexingService indexingService, ExecutorService executorService) {
+    public ApiController(StatisticsService statisticsService, IndexingService indexingService,
+                         SearchService searchService, ExecutorService executorService) {
         this.statisticsService = statisticsService;
         this.indexingService = indexingService;
+        this.searchService = searchService;
         this.executorService = executorService;
     }
 
@@ -34,7 +40,9 @@ public class ApiController {
     }
 
     @GetMapping("/startIndexing")
-    public ResponseEntity<Map<String, Object>> startIndexing() {
+    public ResponseEntity<Map<String, Object>> startIndexing(
+            @RequestParam(defaultValue = "false") boolean incremental,
+            @RequestParam(defaultValue = "false") boolean resume) {
         if (indexingService.isIndexingInProgress()) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("result", false);
@@ -42,8 +50,9 @@ public class ApiController {
             return ResponseEntity.badRequest().body(errorResponse);
         }
 
-        // Запуск асинхронной индексации
-        executorService.submit(indexingService::startFullIndexing);
+        // Запуск асинхронной индексации; incremental=true — повторный обход без очистки данных,
+        // resume=true — продолжение обхода с контрольных точек
+        executorService.submit(() -> indexingService.startIndexing(incremental, resume));
 
         Map<String, Object> successResponse = new HashMap<>();
         successResponse.put("result", true);
@@ -65,4 +74,46 @@ public class ApiController {
         successResponse.put("result", true);
         return ResponseEntity.ok(successResponse);
     }
+
+    @PostMapping("/indexPage")
+    public ResponseEntity<Map<String, Object>> indexPage(@RequestParam(required = false) String url) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("result", false);
+        if (url == null || url.isBlank()) {
+            errorResponse.put("error", "Не указан адрес страницы");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        try {
+            indexingService.indexPage(url.trim());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        } catch (IOException e) {
+            errorResponse.put("error", "Не удалось загрузить страницу: " + e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errorResponse.put("error", "Индексация страницы прервана");
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+
+        Map<String, Object> successResponse = new HashMap<>();
+        successResponse.put("result", true);
+        return ResponseEntity.ok(successResponse);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam(required = false) String query,
+                                    @RequestParam(required = false) String site,
+                                    @RequestParam(defaultValue = "0") int offset,
+                                    @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(searchService.search(query, site, offset, limit));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("result", false);
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
 }
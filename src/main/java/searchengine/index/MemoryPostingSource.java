@@ -0,0 +1,21 @@
+package searchengine.index;
+
+import java.util.Map;
+
+public class MemoryPostingSource implements PostingSource {
+    private final Map<String, PostingList> postings;
+
+    public MemoryPostingSource(Map<String, PostingList> postings) {
+        this.postings = postings;
+    }
+
+    @Override
+    public PostingList postings(String lemma) {
+        return postings.get(lemma);
+    }
+
+    @Override
+    public int lemmaCount() {
+        return postings.size();
+    }
+}
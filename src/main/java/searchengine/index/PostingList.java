@@ -0,0 +1,63 @@
+package searchengine.index;
+
+/**
+ * Список страниц, на которых встречается лемма, с рангом леммы на каждой странице.
+ * Идентификаторы страниц отсортированы по возрастанию.
+ */
+public final class PostingList {
+    private final int[] pageIds;
+    private final float[] ranks;
+
+    public PostingList(int[] pageIds, float[] ranks) {
+        this.pageIds = pageIds;
+        this.ranks = ranks;
+    }
+
+    public int size() {
+        return pageIds.length;
+    }
+
+    public int pageId(int position) {
+        return pageIds[position];
+    }
+
+    public float rank(int position) {
+        return ranks[position];
+    }
+
+    int[] pageIds() {
+        return pageIds;
+    }
+
+    float[] ranks() {
+        return ranks;
+    }
+
+    // Первая позиция не раньше from, где pageId >= target (экспоненциальный, затем двоичный поиск)
+    public int advance(int target, int from) {
+        int size = pageIds.length;
+        if (from >= size || pageIds[from] >= target) {
+            return from;
+        }
+        int step = 1;
+        int low = from;
+        int high = from + 1;
+        while (high < size && pageIds[high] < target) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        high = Math.min(high, size);
+        // pageIds[low] < target, ответ в (low, high]
+        low++;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (pageIds[middle] < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
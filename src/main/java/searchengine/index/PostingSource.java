@@ -0,0 +1,10 @@
+package searchengine.index;
+
+// Откуда SiteIndex берёт списки страниц: из памяти или из файлов сегментов
+public interface PostingSource {
+
+    // Список страниц леммы или null, если лемма на сайте не встречается
+    PostingList postings(String lemma);
+
+    int lemmaCount();
+}
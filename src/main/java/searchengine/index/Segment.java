@@ -0,0 +1,164 @@
+package searchengine.index;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Неизменяемый сегмент индекса, отображённый в память (формат описан в SegmentWriter).
+ * Чтение идёт абсолютными get-ами прямо из страничного кеша ОС, без загрузки файла в кучу;
+ * декодируются только списки лемм запроса.
+ */
+public class Segment implements PostingSource {
+    static final int MAGIC = 0x53454731; // "SEG1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int FLAG_FULL = 1;
+    private static final int DICTIONARY_ENTRY_SIZE = 16;
+
+    private final Path path;
+    private final long generation;
+    private final MappedByteBuffer buffer;
+    private final int siteId;
+    private final int pageCount;
+    private final int lemmaCount;
+    private final boolean full;
+    private final int dictionaryOffset;
+    private final int keysOffset;
+    private final int postingsOffset;
+    private final int coveredOffset;
+    private final int coveredCount;
+
+    private Segment(Path path, long generation, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.generation = generation;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Файл не является сегментом индекса: " + path);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Неподдерживаемая версия сегмента " + buffer.getInt(4) + ": " + path);
+        }
+        this.siteId = buffer.getInt(8);
+        this.pageCount = buffer.getInt(12);
+        this.lemmaCount = buffer.getInt(16);
+        this.full = (buffer.getInt(20) & FLAG_FULL) != 0;
+        this.dictionaryOffset = (int) buffer.getLong(24);
+        this.keysOffset = (int) buffer.getLong(32);
+        this.postingsOffset = (int) buffer.getLong(40);
+        this.coveredOffset = (int) buffer.getLong(48);
+        this.coveredCount = buffer.getInt(56);
+        if ((long) dictionaryOffset + (long) lemmaCount * DICTIONARY_ENTRY_SIZE > buffer.capacity()) {
+            throw new IOException("Сегмент повреждён: " + path);
+        }
+    }
+
+    public static Segment open(Path path, long generation) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Отображение остаётся действительным и после закрытия канала
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new Segment(path, generation, buffer);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int getSiteId() {
+        return siteId;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    @Override
+    public int lemmaCount() {
+        return lemmaCount;
+    }
+
+    @Override
+    public PostingList postings(String lemma) {
+        int entry = find(lemma);
+        return entry < 0 ? null : decode(entry);
+    }
+
+    public String lemma(int entry) {
+        int keyOffset = buffer.getInt(dictionaryOffset + entry * DICTIONARY_ENTRY_SIZE);
+        int position = keysOffset + keyOffset;
+        int length = buffer.getShort(position) & 0xffff;
+        byte[] bytes = new byte[length];
+        buffer.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public PostingList decode(int entry) {
+        int base = dictionaryOffset + entry * DICTIONARY_ENTRY_SIZE;
+        int docCount = buffer.getInt(base + 4);
+        int position = postingsOffset + (int) buffer.getLong(base + 8);
+
+        int[] pageIds = new int[docCount];
+        position = readDeltas(position, pageIds);
+        float[] ranks = new float[docCount];
+        for (int i = 0; i < docCount; i++) {
+            ranks[i] = buffer.getFloat(position);
+            position += Float.BYTES;
+        }
+        return new PostingList(pageIds, ranks);
+    }
+
+    // Страницы, которые описывает дельта-сегмент: их записи в более старых сегментах устарели
+    public int[] coveredPages() {
+        int[] pages = new int[coveredCount];
+        readDeltas(coveredOffset, pages);
+        return pages;
+    }
+
+    // Читает varint-дельты возрастающей последовательности; возвращает позицию за последним байтом
+    private int readDeltas(int position, int[] target) {
+        int previous = 0;
+        for (int i = 0; i < target.length; i++) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(position++);
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous += value;
+            target[i] = previous;
+        }
+        return position;
+    }
+
+    // Двоичный поиск по словарю; ключи отсортированы по String.compareTo
+    private int find(String lemma) {
+        int low = 0;
+        int high = lemmaCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = lemma(middle).compareTo(lemma);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+}
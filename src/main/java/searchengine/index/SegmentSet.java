@@ -0,0 +1,143 @@
+package searchengine.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Сегменты одного сайта от нового к старому: полный сегмент и дельта-сегменты поверх него.
+ * Страницы, которые описывает более новый сегмент, в старых сегментах не учитываются,
+ * а всё, что старше полного сегмента, не читается вовсе.
+ */
+public class SegmentSet implements PostingSource {
+    private final List<Segment> segments;
+    // shadowed[i] — отсортированные страницы, перекрытые сегментами новее i-го
+    private final int[][] shadowed;
+
+    public SegmentSet(List<Segment> newestFirst) {
+        List<Segment> visible = new ArrayList<>();
+        for (Segment segment : newestFirst) {
+            visible.add(segment);
+            if (segment.isFull()) {
+                break;
+            }
+        }
+        this.segments = List.copyOf(visible);
+        this.shadowed = new int[segments.size()][];
+        int[] covered = new int[0];
+        for (int i = 0; i < segments.size(); i++) {
+            shadowed[i] = covered;
+            covered = union(covered, segments.get(i).coveredPages());
+        }
+    }
+
+    public List<Segment> segments() {
+        return segments;
+    }
+
+    public int pageCount() {
+        return segments.isEmpty() ? 0 : segments.get(0).getPageCount();
+    }
+
+    @Override
+    public int lemmaCount() {
+        int count = 0;
+        for (Segment segment : segments) {
+            count = Math.max(count, segment.lemmaCount());
+        }
+        return count;
+    }
+
+    @Override
+    public PostingList postings(String lemma) {
+        if (segments.size() == 1) {
+            return segments.get(0).postings(lemma);
+        }
+        List<PostingList> parts = new ArrayList<>();
+        int total = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            PostingList part = segments.get(i).postings(lemma);
+            if (part != null) {
+                part = without(part, shadowed[i]);
+                parts.add(part);
+                total += part.size();
+            }
+        }
+        if (total == 0) {
+            return null;
+        }
+        return parts.size() == 1 ? parts.get(0) : merge(parts, total);
+    }
+
+    // Все леммы видимых сегментов по возрастанию — для слияния в один полный сегмент
+    public TreeSet<String> lemmas() {
+        TreeSet<String> lemmas = new TreeSet<>();
+        for (Segment segment : segments) {
+            for (int entry = 0; entry < segment.lemmaCount(); entry++) {
+                lemmas.add(segment.lemma(entry));
+            }
+        }
+        return lemmas;
+    }
+
+    private static PostingList without(PostingList list, int[] excluded) {
+        if (excluded.length == 0) {
+            return list;
+        }
+        int[] pageIds = new int[list.size()];
+        float[] ranks = new float[list.size()];
+        int kept = 0;
+        for (int i = 0; i < list.size(); i++) {
+            if (Arrays.binarySearch(excluded, list.pageId(i)) < 0) {
+                pageIds[kept] = list.pageId(i);
+                ranks[kept] = list.rank(i);
+                kept++;
+            }
+        }
+        return new PostingList(Arrays.copyOf(pageIds, kept), Arrays.copyOf(ranks, kept));
+    }
+
+    // Части после фильтрации не пересекаются по страницам, остаётся слить отсортированные списки
+    private static PostingList merge(List<PostingList> parts, int total) {
+        int[] pageIds = new int[total];
+        float[] ranks = new float[total];
+        int[] positions = new int[parts.size()];
+        for (int out = 0; out < total; out++) {
+            int best = -1;
+            for (int k = 0; k < parts.size(); k++) {
+                if (positions[k] < parts.get(k).size()
+                        && (best < 0 || parts.get(k).pageId(positions[k]) < parts.get(best).pageId(positions[best]))) {
+                    best = k;
+                }
+            }
+            pageIds[out] = parts.get(best).pageId(positions[best]);
+            ranks[out] = parts.get(best).rank(positions[best]);
+            positions[best]++;
+        }
+        return new PostingList(pageIds, ranks);
+    }
+
+    private static int[] union(int[] left, int[] right) {
+        if (right.length == 0) {
+            return left;
+        }
+        int[] result = new int[left.length + right.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < left.length || j < right.length) {
+            int next;
+            if (j == right.length || (i < left.length && left[i] < right[j])) {
+                next = left[i++];
+            } else if (i == left.length || right[j] < left[i]) {
+                next = right[j++];
+            } else {
+                next = left[i++];
+                j++;
+            }
+            result[size++] = next;
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
@@ -0,0 +1,160 @@
+package searchengine.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Каталог сегментов: {@code <directory>/site-<id>/<поколение>.seg}.
+ * Поколение растёт монотонно, поэтому порядок имён файлов — это порядок записи сегментов.
+ */
+public class SegmentStore {
+    private static final Logger logger = LoggerFactory.getLogger(SegmentStore.class);
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+    private final AtomicLong lastGeneration = new AtomicLong();
+
+    public SegmentStore(Path directory) {
+        this.directory = directory;
+    }
+
+    // Сегменты сайта от нового к старому; недописанные и перекрытые полным сегментом файлы удаляются
+    public List<Segment> open(int siteId) throws IOException {
+        Path siteDirectory = siteDirectory(siteId);
+        if (!Files.isDirectory(siteDirectory)) {
+            return List.of();
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(siteDirectory)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SUFFIX)) {
+                    files.add(file);
+                } else if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        files.sort(Comparator.comparingLong(SegmentStore::generationOf).reversed());
+
+        List<Segment> segments = new ArrayList<>();
+        boolean fullFound = false;
+        for (Path file : files) {
+            long generation = generationOf(file);
+            lastGeneration.accumulateAndGet(generation, Math::max);
+            if (fullFound) {
+                delete(file);
+                continue;
+            }
+            Segment segment = Segment.open(file, generation);
+            segments.add(segment);
+            fullFound = segment.isFull();
+        }
+        if (!fullFound) {
+            // Без полного сегмента дельты описывают сайт не целиком
+            throw new IOException("У сайта " + siteId + " нет полного сегмента индекса");
+        }
+        return segments;
+    }
+
+    public Segment writeFull(int siteId, int pageCount, SortedMap<String, PostingList> postings) throws IOException {
+        return write(siteId, nextGeneration(), pageCount, postings, new int[0], true);
+    }
+
+    // coveredPages — отсортированные страницы, чьи записи заменяет дельта (включая удалённые страницы)
+    public Segment writeDelta(int siteId, int pageCount, SortedMap<String, PostingList> postings,
+                              int[] coveredPages) throws IOException {
+        return write(siteId, nextGeneration(), pageCount, postings, coveredPages, false);
+    }
+
+    /**
+     * Сливает сегменты в один полный. Он получает поколение самого нового из слитых сегментов
+     * и заменяет его файл, так что дельты, записанные во время слияния, остаются новее.
+     */
+    public Segment merge(int siteId, SegmentSet segments) throws IOException {
+        long generation = segments.segments().get(0).getGeneration();
+        Path target = segmentPath(siteId, generation);
+        try (SegmentWriter writer = new SegmentWriter(target, siteId, segments.pageCount(), true)) {
+            for (String lemma : segments.lemmas()) {
+                PostingList postings = segments.postings(lemma);
+                if (postings != null) {
+                    writer.add(lemma, postings);
+                }
+            }
+            writer.finish(new int[0]);
+        }
+        return Segment.open(target, generation);
+    }
+
+    // Отображение в память остаётся действительным после удаления файла, поэтому читатели не страдают
+    public void delete(Segment segment) {
+        delete(segment.getPath());
+    }
+
+    public void deleteSite(int siteId) {
+        Path siteDirectory = siteDirectory(siteId);
+        if (!Files.isDirectory(siteDirectory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(siteDirectory)) {
+            files.forEach(this::delete);
+            Files.deleteIfExists(siteDirectory);
+        } catch (IOException e) {
+            logger.warn("Не удалось удалить каталог сегментов {}: {}", siteDirectory, e.getMessage());
+        }
+    }
+
+    private Segment write(int siteId, long generation, int pageCount, SortedMap<String, PostingList> postings,
+                          int[] coveredPages, boolean full) throws IOException {
+        Files.createDirectories(siteDirectory(siteId));
+        Path target = segmentPath(siteId, generation);
+        try (SegmentWriter writer = new SegmentWriter(target, siteId, pageCount, full)) {
+            for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+                writer.add(entry.getKey(), entry.getValue());
+            }
+            writer.finish(coveredPages);
+        }
+        return Segment.open(target, generation);
+    }
+
+    private long nextGeneration() {
+        return lastGeneration.accumulateAndGet(System.currentTimeMillis(), (last, now) -> Math.max(last + 1, now));
+    }
+
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Не удалось удалить файл сегмента {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Path siteDirectory(int siteId) {
+        return directory.resolve("site-" + siteId);
+    }
+
+    private Path segmentPath(int siteId, long generation) {
+        return siteDirectory(siteId).resolve(String.format("%019d%s", generation, SUFFIX));
+    }
+
+    private static long generationOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package searchengine.index;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Запись неизменяемого файла сегмента индекса.
+ *
+ * <pre>
+ * заголовок   HEADER_SIZE байт, см. Segment
+ * postings    для каждой леммы: docCount varint-дельт pageId, затем docCount float рангов
+ * keys        для каждой леммы: длина (short) и байты UTF-8
+ * dictionary  lemmaCount записей по 16 байт: смещение ключа, docCount, смещение postings
+ * covered     varint-дельты страниц, которые описывает дельта-сегмент
+ * </pre>
+ *
+ * Леммы должны добавляться в порядке String.compareTo: в нём Segment ищет ключ двоичным поиском.
+ * Файл пишется во временный и переименовывается атомарно.
+ */
+public class SegmentWriter implements AutoCloseable {
+
+    private final Path target;
+    private final Path temporary;
+    private final int siteId;
+    private final int pageCount;
+    private final boolean full;
+    private final CountingOutputStream counter;
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream keys = new ByteArrayOutputStream();
+    private final DataOutputStream keysOut = new DataOutputStream(keys);
+    private long[] dictionary = new long[64 * 2];
+    private int lemmaCount;
+    private String lastLemma;
+    private boolean finished;
+
+    // full: сегмент описывает весь сайт и заменяет все более старые сегменты
+    public SegmentWriter(Path target, int siteId, int pageCount, boolean full) throws IOException {
+        this.target = target;
+        this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        this.siteId = siteId;
+        this.pageCount = pageCount;
+        this.full = full;
+        this.counter = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16));
+        this.out = new DataOutputStream(counter);
+        out.write(new byte[Segment.HEADER_SIZE]);
+    }
+
+    public void add(String lemma, PostingList postings) throws IOException {
+        if (lastLemma != null && lemma.compareTo(lastLemma) <= 0) {
+            throw new IllegalArgumentException("Леммы должны идти по возрастанию: " + lastLemma + ", " + lemma);
+        }
+        if (postings.size() == 0) {
+            return;
+        }
+        lastLemma = lemma;
+
+        long postingsOffset = counter.count - Segment.HEADER_SIZE;
+        int previous = 0;
+        for (int i = 0; i < postings.size(); i++) {
+            writeVarInt(out, postings.pageId(i) - previous);
+            previous = postings.pageId(i);
+        }
+        for (int i = 0; i < postings.size(); i++) {
+            out.writeFloat(postings.rank(i));
+        }
+
+        byte[] key = lemma.getBytes(StandardCharsets.UTF_8);
+        int keyOffset = keys.size();
+        keysOut.writeShort(key.length);
+        keysOut.write(key);
+
+        if (lemmaCount * 2 == dictionary.length) {
+            dictionary = Arrays.copyOf(dictionary, dictionary.length * 2);
+        }
+        dictionary[lemmaCount * 2] = ((long) keyOffset << 32) | (postings.size() & 0xffffffffL);
+        dictionary[lemmaCount * 2 + 1] = postingsOffset;
+        lemmaCount++;
+    }
+
+    // coveredPages — отсортированные страницы дельта-сегмента; для полного сегмента пустой массив
+    public void finish(int[] coveredPages) throws IOException {
+        long postingsOffset = Segment.HEADER_SIZE;
+        long keysOffset = counter.count;
+        keys.writeTo(out);
+        long dictionaryOffset = counter.count;
+        for (int i = 0; i < lemmaCount; i++) {
+            out.writeInt((int) (dictionary[i * 2] >>> 32));
+            out.writeInt((int) dictionary[i * 2]);
+            out.writeLong(dictionary[i * 2 + 1]);
+        }
+        long coveredOffset = counter.count;
+        int previous = 0;
+        for (int page : coveredPages) {
+            writeVarInt(out, page - previous);
+            previous = page;
+        }
+        out.flush();
+        if (counter.count > Integer.MAX_VALUE) {
+            throw new IOException("Сегмент больше 2 ГБ не может быть отображён в память целиком");
+        }
+        out.close();
+        finished = true;
+
+        ByteBuffer header = ByteBuffer.allocate(Segment.HEADER_SIZE);
+        header.putInt(Segment.MAGIC)
+                .putInt(Segment.VERSION)
+                .putInt(siteId)
+                .putInt(pageCount)
+                .putInt(lemmaCount)
+                .putInt(full ? Segment.FLAG_FULL : 0)
+                .putLong(dictionaryOffset)
+                .putLong(keysOffset)
+                .putLong(postingsOffset)
+                .putLong(coveredOffset)
+                .putInt(coveredPages.length);
+        header.rewind();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.write(header, 0);
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Незавершённый сегмент удаляется
+    @Override
+    public void close() throws IOException {
+        if (!finished) {
+            out.close();
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private final OutputStream delegate;
+        private long count;
+
+        CountingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
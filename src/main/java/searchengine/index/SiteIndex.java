@@ -0,0 +1,89 @@
+package searchengine.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Инвертированный индекс одного сайта: лемма → список страниц с рангами.
+ * Неизменяемый; при переиндексации сайта строится новый экземпляр.
+ */
+public class SiteIndex {
+    private final int siteId;
+    private final int pageCount;
+    private final PostingSource postings;
+
+    public SiteIndex(int siteId, int pageCount, PostingSource postings) {
+        this.siteId = siteId;
+        this.pageCount = pageCount;
+        this.postings = postings;
+    }
+
+    public int getSiteId() {
+        return siteId;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public int getLemmaCount() {
+        return postings.lemmaCount();
+    }
+
+    /**
+     * Находит страницы, на которых есть все леммы запроса.
+     * Леммы, встречающиеся более чем на maxPageRatio страниц, отбрасываются
+     * (если отброшены были бы все — учитываются все). Пересечение идёт от самой редкой леммы,
+     * так что объём работы ограничен длиной самого короткого списка.
+     */
+    public SiteMatches search(Collection<String> lemmas, double maxPageRatio) {
+        List<PostingList> lists = new ArrayList<>(lemmas.size());
+        for (String lemma : lemmas) {
+            PostingList list = postings.postings(lemma);
+            if (list == null) {
+                return SiteMatches.empty(siteId);
+            }
+            lists.add(list);
+        }
+        if (lists.isEmpty()) {
+            return SiteMatches.empty(siteId);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+
+        List<PostingList> selective = lists.stream()
+                .filter(list -> list.size() <= maxPageRatio * pageCount)
+                .toList();
+        if (!selective.isEmpty()) {
+            lists = selective;
+        }
+        return intersect(lists);
+    }
+
+    private SiteMatches intersect(List<PostingList> lists) {
+        PostingList rarest = lists.get(0);
+        int[] pageIds = rarest.pageIds().clone();
+        float[] relevance = rarest.ranks().clone();
+        int size = pageIds.length;
+
+        for (int k = 1; k < lists.size() && size > 0; k++) {
+            PostingList next = lists.get(k);
+            int position = 0;
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                position = next.advance(pageIds[i], position);
+                if (position == next.size()) {
+                    break;
+                }
+                if (next.pageId(position) == pageIds[i]) {
+                    pageIds[kept] = pageIds[i];
+                    relevance[kept] = relevance[i] + next.rank(position);
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+        return new SiteMatches(siteId, pageIds, relevance, size);
+    }
+}
@@ -0,0 +1,80 @@
+package searchengine.index;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Сборка SiteIndex из строк таблицы index, пришедших в произвольном порядке.
+ * Пара (страница, ранг) упаковывается в один long, поэтому сортировка списка
+ * по идентификатору страницы — это сортировка массива примитивов.
+ */
+public class SiteIndexBuilder {
+    private final int siteId;
+    private final Map<Integer, LongArray> postingsByLemmaId = new HashMap<>();
+    private final BitSet pages = new BitSet();
+
+    public SiteIndexBuilder(int siteId) {
+        this.siteId = siteId;
+    }
+
+    public void add(int lemmaId, int pageId, float rank) {
+        postingsByLemmaId.computeIfAbsent(lemmaId, id -> new LongArray()).add(pack(pageId, rank));
+        pages.set(pageId);
+    }
+
+    public SiteIndex build(Map<Integer, String> lemmaNames) {
+        return new SiteIndex(siteId, pageCount(), new MemoryPostingSource(buildPostings(lemmaNames)));
+    }
+
+    public int pageCount() {
+        return pages.cardinality();
+    }
+
+    // Списки страниц в порядке лемм, в котором их ожидает SegmentWriter
+    public TreeMap<String, PostingList> buildPostings(Map<Integer, String> lemmaNames) {
+        TreeMap<String, PostingList> postings = new TreeMap<>();
+        postingsByLemmaId.forEach((lemmaId, packed) -> {
+            String lemma = lemmaNames.get(lemmaId);
+            if (lemma != null) {
+                postings.put(lemma, toPostingList(packed));
+            }
+        });
+        return postings;
+    }
+
+    private static PostingList toPostingList(LongArray packed) {
+        long[] values = packed.toArray();
+        Arrays.sort(values);
+        int[] pageIds = new int[values.length];
+        float[] ranks = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            pageIds[i] = (int) (values[i] >>> 32);
+            ranks[i] = Float.intBitsToFloat((int) values[i]);
+        }
+        return new PostingList(pageIds, ranks);
+    }
+
+    // Идентификаторы страниц положительны, поэтому порядок long совпадает с порядком pageId
+    private static long pack(int pageId, float rank) {
+        return ((long) pageId << 32) | (Float.floatToIntBits(rank) & 0xffffffffL);
+    }
+
+    private static final class LongArray {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
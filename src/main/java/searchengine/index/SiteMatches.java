@@ -0,0 +1,72 @@
+package searchengine.index;
+
+import java.util.Arrays;
+
+// Страницы сайта, содержащие все леммы запроса, и их абсолютная релевантность
+public record SiteMatches(int siteId, int[] pageIds, float[] relevance, int size) {
+
+    public static SiteMatches empty(int siteId) {
+        return new SiteMatches(siteId, new int[0], new float[0], 0);
+    }
+
+    // (релевантность, страница) в одном long: положительные float сравниваются как их биты
+    public static long pack(float relevance, int pageId) {
+        return ((long) Float.floatToIntBits(relevance) << 32) | pageId;
+    }
+
+    public static float relevanceOf(long packed) {
+        return Float.intBitsToFloat((int) (packed >>> 32));
+    }
+
+    public static int pageIdOf(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Лучшие k совпадений по возрастанию релевантности, упакованные pack().
+     * Отбор идёт кучей из k элементов, так что вся выдача сайта не сортируется.
+     */
+    public long[] top(int k) {
+        int n = Math.min(k, size);
+        long[] heap = new long[n];
+        for (int i = 0; i < n; i++) {
+            heap[i] = pack(relevance[i], pageIds[i]);
+        }
+        if (n < size) {
+            for (int i = n / 2 - 1; i >= 0; i--) {
+                siftDown(heap, i);
+            }
+            // В корне минимум из k лучших: всё, что не лучше его, в выдачу не попадает
+            for (int i = n; i < size && n > 0; i++) {
+                long packed = pack(relevance[i], pageIds[i]);
+                if (packed > heap[0]) {
+                    heap[0] = packed;
+                    siftDown(heap, 0);
+                }
+            }
+        }
+        Arrays.sort(heap);
+        return heap;
+    }
+
+    private static void siftDown(long[] heap, int index) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < heap.length && heap[left] < heap[smallest]) {
+                smallest = left;
+            }
+            if (right < heap.length && heap[right] < heap[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            long swap = heap[index];
+            heap[index] = heap[smallest];
+            heap[smallest] = swap;
+            index = smallest;
+        }
+    }
+}
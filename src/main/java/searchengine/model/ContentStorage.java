@@ -0,0 +1,8 @@
+package searchengine.model;
+
+// Как хранится тело страницы в таблице page
+public enum ContentStorage {
+    HTML,        // Исходный HTML в столбце content
+    COMPRESSED,  // HTML, сжатый DEFLATE, в столбце content_compressed
+    TEXT         // Разметка не сохраняется: остаются только столбцы title и text_compressed
+}
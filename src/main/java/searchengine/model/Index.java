@@ -6,7 +6,11 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 @Entity
-@Table(name = "'index'")
+@Table(
+        name = "`index`",
+        indexes = {@jakarta.persistence.Index(name = "idx_index_lemma", columnList = "lemma_id")},
+        uniqueConstraints = {@UniqueConstraint(name = "uk_index_page_lemma", columnNames = {"page_id", "lemma_id"})}
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,6 +29,10 @@ public class Index {
     @JoinColumn(name = "lemma_id", nullable = false)
     private Lemma lemma;
 
-    @Column(name = "'rank'", nullable = false)
+    @Column(name = "`rank`", nullable = false)
     private Float rank;
+
+    // Смещения первых вхождений леммы в тексте страницы (PositionCodec) — по ним строится сниппет
+    @Column(columnDefinition = "VARBINARY(255)")
+    private byte[] positions;
 }
\ No newline at end of file
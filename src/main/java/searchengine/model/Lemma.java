@@ -7,7 +7,11 @@ import lombok.AllArgsConstructor;
 import jakarta.persistence.Index;  // For Javax Persistence
 
 @Entity
-@Table(name = "lemma", indexes = @Index(name = "idx_lemma", columnList = "lemma"))
+@Table(
+        name = "lemma",
+        indexes = @Index(name = "idx_lemma", columnList = "lemma"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_lemma_site_lemma", columnNames = {"site_id", "lemma"})
+)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,7 +26,8 @@ public class Lemma {
     @JoinColumn(name = "site_id", nullable = false)
     private Site site;
 
-    @Column(name = "lemma", nullable = false, length = 500)
+    // Бинарное сравнение: иначе collation MySQL склеивает, например, «е» и «ё» в одну строку
+    @Column(name = "lemma", nullable = false, length = 500, columnDefinition = "VARCHAR(500) COLLATE utf8mb4_bin")
     private String lemma;
 
     @Column(name = "frequency", nullable = false)
@@ -1,21 +1,33 @@
 package searchengine.model;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
+import searchengine.utils.ContentCodec;
 
 @Entity
 @Table(
         name = "page",
-        indexes = {@jakarta.persistence.Index(name = "idx_path", columnList = "path")}
+        indexes = {@jakarta.persistence.Index(name = "idx_path", columnList = "path")},
+        uniqueConstraints = {@UniqueConstraint(name = "uk_page_site_path", columnNames = {"site_id", "path"})}
 )
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+// Геттеры тела, заголовка и текста распаковывают и разбирают HTML — toString и equals работают с полями
+@ToString(doNotUseGetters = true)
+@EqualsAndHashCode(doNotUseGetters = true)
 public class Page {
+    private static final int MAX_TITLE_LENGTH = 500;
+    public static final int MAX_PATH_LENGTH = 500;
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -23,44 +35,131 @@ public class Page {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "site_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Site site;
 
-    @Column(length = 500, nullable = false) // Increase length to accommodate longer paths
+    // Путь вместе со строкой запроса (UrlNormalizer.pathOf).
+    // Бинарное сравнение: пути /A и /a — разные страницы для uk_page_site_path
+    @Column(length = 500, nullable = false, columnDefinition = "VARCHAR(500) COLLATE utf8mb4_bin")
     private String path;
 
 
     @Column(nullable = false)
     private int code;
 
+    // При сжатом хранении пуст, тело лежит в content_compressed
     @Column(columnDefinition = "MEDIUMTEXT", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private String content;
 
+    @Column(name = "content_compressed", columnDefinition = "MEDIUMBLOB")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private byte[] contentCompressed;
+
+    // null у страниц, записанных до появления режимов хранения, — это HTML
+    @Enumerated(EnumType.STRING)
+    @Column(name = "content_storage", length = 16)
+    private ContentStorage contentStorage;
+
     @Column(length = 500)
     private String contentType; // Столбец для хранения типа содержимого (например, "image/png")
 
-    // Дополнительное поле для хранения заголовка страницы
-    @Transient
+    // Валидаторы HTTP из последнего ответа: с ними повторный обход делает условный запрос
+    @Column(length = 255)
+    private String etag;
+
+    @Column(name = "last_modified", length = 64)
+    private String lastModified;
+
+    // Хеш тела последнего ответа: совпадение означает, что страница не изменилась
+    @Column(name = "content_hash")
+    private Long contentHash;
+
+    // Заголовок и текст извлекаются один раз при загрузке страницы, поиск читает их без разбора HTML
+    @Column(length = 500)
     private String title;
 
-    // Дополнительное поле для хранения текста страницы
+    @Column(name = "text_compressed", columnDefinition = "MEDIUMBLOB")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private byte[] textCompressed;
+
+    // Разобранные заголовок и текст: у страниц, записанных до появления столбцов title и text_compressed,
+    // HTML разбирается один раз на объект, а не при каждом вызове геттера
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private String parsedTitle;
+
     @Transient
-    private String text;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private String parsedText;
+
+    // Тело страницы; сжатое хранение распаковывается прозрачно
+    public String getContent() {
+        return contentCompressed == null ? content : ContentCodec.decompress(contentCompressed);
+    }
+
+    // Записывает тело страницы в выбранном режиме хранения вместе с заголовком и текстом
+    public void storeContent(String html, ContentStorage storage, String title, String text) {
+        contentStorage = storage;
+        this.title = title == null || title.length() <= MAX_TITLE_LENGTH ? title : title.substring(0, MAX_TITLE_LENGTH);
+        textCompressed = text == null ? null : ContentCodec.compress(text);
+        parsedTitle = null;
+        parsedText = text;
+        switch (storage) {
+            case HTML -> {
+                content = html;
+                contentCompressed = null;
+            }
+            case COMPRESSED -> {
+                content = "";
+                contentCompressed = ContentCodec.compress(html);
+            }
+            case TEXT -> {
+                // Разметка не сохраняется: заголовок и текст уже лежат в своих столбцах
+                content = "";
+                contentCompressed = null;
+            }
+        }
+    }
 
-    // Метод для извлечения заголовка из HTML контента
     public String getTitle() {
-        if (content != null) {
-            Document doc = Jsoup.parse(content);
-            return doc.title(); // Извлекаем заголовок страницы из тега <title>
+        if (title != null) {
+            return title;
         }
-        return null;
+        parseContent();
+        return parsedTitle;
     }
 
-    // Метод для извлечения текста из HTML контента
     public String getText() {
-        if (content != null) {
-            Document doc = Jsoup.parse(content);
-            return doc.text(); // Извлекаем текст из HTML (без тегов)
+        if (parsedText == null) {
+            if (textCompressed != null) {
+                parsedText = ContentCodec.decompress(textCompressed);
+            } else {
+                parseContent();
+            }
+        }
+        return parsedText;
+    }
+
+    private void parseContent() {
+        if (parsedTitle != null && parsedText != null) {
+            return;
+        }
+        String html = getContent();
+        if (html != null) {
+            Document doc = Jsoup.parse(html);
+            parsedTitle = doc.title();
+            parsedText = doc.text();
         }
-        return null;
     }
 }
@@ -5,8 +5,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 @Entity
 @Table(
@@ -38,24 +36,8 @@ public class Site {
     @Column(length = 500, nullable = false)
     private String name;
 
-    @OneToMany(mappedBy = "site", cascade = CascadeType.ALL, orphanRemoval = true)
-    private List<Page> pages = new ArrayList<>();
-
-    public void addPage(Page page) {
-        pages.add(page);
-        page.setSite(this);
-    }
-
-    public void removePage(Page page) {
-        pages.remove(page);
-        page.setSite(null);
-    }
-
-    public void clearPages() {
-        for (Page page : new ArrayList<>(pages)) {
-            removePage(page);
-        }
-    }
+    // Страницы сайта связаны с ним только со стороны Page: коллекция с каскадом загружала бы
+    // все страницы при удалении сайта. Данные сайта удаляются пакетными запросами (SiteGenerations.delete)
 
     // Helper method for updating the status, status time, and error message
     public void updateStatus(IndexingStatus newStatus, String errorMessage) {
@@ -0,0 +1,148 @@
+package searchengine.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import searchengine.utils.PositionCodec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пакетная вставка строк поискового индекса.
+ */
+@Repository
+public class IndexJdbcRepository {
+
+    private static final int IN_CLAUSE_CHUNK = 500;
+    // Страниц на один DELETE при удалении сайта: каждая пачка — короткая отдельная транзакция
+    private static final int DELETE_CHUNK = 1000;
+
+    private static final String INSERT_SQL =
+            "INSERT IGNORE INTO `index` (page_id, lemma_id, `rank`, positions) VALUES (?, ?, ?, ?)";
+
+    private static final String SITE_POSTINGS_SQL =
+            "SELECT i.lemma_id, i.page_id, i.`rank` FROM `index` i " +
+            "JOIN lemma l ON l.id = i.lemma_id WHERE l.site_id = ?";
+
+    private static final String PAGE_POSTINGS_SQL =
+            "SELECT lemma_id, page_id, `rank` FROM `index` WHERE page_id IN (:pageIds)";
+
+    private static final String PAGE_LEMMAS_SQL =
+            "SELECT i.page_id, l.lemma FROM `index` i JOIN lemma l ON l.id = i.lemma_id WHERE i.page_id IN (:pageIds)";
+
+    private static final String PAGE_POSITIONS_SQL =
+            "SELECT i.page_id, l.lemma, i.positions FROM `index` i JOIN lemma l ON l.id = i.lemma_id " +
+            "WHERE i.page_id IN (:pageIds) AND l.lemma IN (:lemmas) AND i.positions IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Отдельный шаблон для чтения всего индекса сайта: драйвер MySQL отдаёт строки потоком,
+    // только если fetchSize равен Integer.MIN_VALUE
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public IndexJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    public void insertAll(List<Row> rows) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (statement, row) -> {
+            statement.setInt(1, row.pageId());
+            statement.setInt(2, row.lemmaId());
+            statement.setFloat(3, row.rank());
+            statement.setBytes(4, row.positions());
+        });
+    }
+
+    // Передаёт обработчику все строки индекса сайта, не загружая их в память целиком
+    public void forEachPosting(int siteId, PostingHandler handler) {
+        streamingJdbcTemplate.query(SITE_POSTINGS_SQL, (RowCallbackHandler) rs ->
+                handler.accept(rs.getInt(1), rs.getInt(2), rs.getFloat(3)), siteId);
+    }
+
+    // Строки индекса только указанных страниц — для дельты поискового индекса после повторного обхода
+    public void forEachPosting(Collection<Integer> pageIds, PostingHandler handler) {
+        for (List<Integer> chunk : chunks(pageIds)) {
+            namedJdbcTemplate.query(PAGE_POSTINGS_SQL, Map.of("pageIds", chunk), (RowCallbackHandler) rs ->
+                    handler.accept(rs.getInt(1), rs.getInt(2), rs.getFloat(3)));
+        }
+    }
+
+    // Леммы, которые сейчас записаны в индексе для каждой из страниц
+    public Map<Integer, List<String>> findLemmasByPageIds(Collection<Integer> pageIds) {
+        Map<Integer, List<String>> lemmas = new HashMap<>();
+        for (List<Integer> chunk : chunks(pageIds)) {
+            namedJdbcTemplate.query(PAGE_LEMMAS_SQL, Map.of("pageIds", chunk), (RowCallbackHandler) rs ->
+                    lemmas.computeIfAbsent(rs.getInt(1), id -> new ArrayList<>()).add(rs.getString(2)));
+        }
+        return lemmas;
+    }
+
+    // Позиции лемм запроса на страницах выдачи: страница → лемма → смещения в тексте.
+    // Страниц без записанных позиций (проиндексированных до их появления) в ответе нет
+    public Map<Integer, Map<String, int[]>> findPositions(Collection<Integer> pageIds, Collection<String> lemmas) {
+        Map<Integer, Map<String, int[]>> positions = new HashMap<>();
+        for (List<Integer> chunk : chunks(pageIds)) {
+            namedJdbcTemplate.query(PAGE_POSITIONS_SQL, Map.of("pageIds", chunk, "lemmas", lemmas),
+                    (RowCallbackHandler) rs -> positions.computeIfAbsent(rs.getInt(1), id -> new HashMap<>())
+                            .put(rs.getString(2), PositionCodec.decode(rs.getBytes(3))));
+        }
+        return positions;
+    }
+
+    public int deleteByPageIds(Collection<Integer> pageIds) {
+        int deleted = 0;
+        for (List<Integer> chunk : chunks(pageIds)) {
+            deleted += namedJdbcTemplate.update("DELETE FROM `index` WHERE page_id IN (:pageIds)",
+                    Map.of("pageIds", chunk));
+        }
+        return deleted;
+    }
+
+    // Строки индекса сайта удаляются пачками по страницам: идентификаторы страниц читаются
+    // по возрастанию от последнего удалённого, так что память и длина транзакции не растут с размером сайта
+    public int deleteBySiteId(int siteId) {
+        int deleted = 0;
+        int lastPageId = 0;
+        while (true) {
+            List<Integer> pageIds = jdbcTemplate.queryForList(
+                    "SELECT id FROM page WHERE site_id = ? AND id > ? ORDER BY id LIMIT ?",
+                    Integer.class, siteId, lastPageId, DELETE_CHUNK);
+            if (pageIds.isEmpty()) {
+                return deleted;
+            }
+            deleted += namedJdbcTemplate.update("DELETE FROM `index` WHERE page_id IN (:pageIds)",
+                    Map.of("pageIds", pageIds));
+            lastPageId = pageIds.get(pageIds.size() - 1);
+        }
+    }
+
+    private static List<List<Integer>> chunks(Collection<Integer> ids) {
+        List<Integer> all = new ArrayList<>(ids);
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += IN_CLAUSE_CHUNK) {
+            chunks.add(all.subList(from, Math.min(all.size(), from + IN_CLAUSE_CHUNK)));
+        }
+        return chunks;
+    }
+
+    // positions — смещения первых вхождений леммы в тексте страницы в формате PositionCodec
+    public record Row(int pageId, int lemmaId, float rank, byte[] positions) {
+
+        public Row(int pageId, int lemmaId, float rank) {
+            this(pageId, lemmaId, rank, null);
+        }
+    }
+
+    @FunctionalInterface
+    public interface PostingHandler {
+        void accept(int lemmaId, int pageId, float rank);
+    }
+}
@@ -0,0 +1,109 @@
+package searchengine.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Пакетное обновление таблицы lemma.
+ */
+@Repository
+public class LemmaJdbcRepository {
+
+    private static final int IN_CLAUSE_CHUNK = 500;
+    private static final int DELETE_CHUNK = 5000;
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO lemma (site_id, lemma, frequency) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE frequency = frequency + VALUES(frequency)";
+
+    private static final String FIND_IDS_SQL =
+            "SELECT id, lemma FROM lemma WHERE site_id = :siteId AND lemma IN (:lemmas)";
+
+    private static final String FIND_UNUSED_SQL =
+            "SELECT id, lemma FROM lemma WHERE site_id = :siteId AND frequency <= 0 AND lemma IN (:lemmas)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public LemmaJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Увеличивает (или, при отрицательном приращении, уменьшает) frequency лемм сайта одним пакетом, создавая недостающие строки.
+    // Леммы идут в отсортированном порядке, поэтому параллельные транзакции
+    // блокируют строки в одной последовательности и не создают взаимоблокировок.
+    public void incrementFrequencies(int siteId, SortedMap<String, Integer> increments) {
+        List<Map.Entry<String, Integer>> rows = new ArrayList<>(increments.entrySet());
+        jdbcTemplate.getJdbcTemplate().batchUpdate(UPSERT_SQL, rows, rows.size(), (statement, row) -> {
+            statement.setInt(1, siteId);
+            statement.setString(2, row.getKey());
+            statement.setInt(3, row.getValue());
+        });
+    }
+
+    // Все леммы сайта: идентификатор → текст леммы
+    public Map<Integer, String> findAllBySiteId(int siteId) {
+        Map<Integer, String> lemmas = new HashMap<>();
+        jdbcTemplate.getJdbcTemplate().query("SELECT id, lemma FROM lemma WHERE site_id = ?",
+                rs -> { lemmas.put(rs.getInt(1), rs.getString(2)); }, siteId);
+        return lemmas;
+    }
+
+    // Удаляет из перечисленных лемм те, что больше не встречаются ни на одной странице сайта;
+    // возвращает удалённые леммы
+    public List<String> deleteUnused(int siteId, Collection<String> lemmas) {
+        Map<String, Integer> unused = new HashMap<>();
+        List<String> all = new ArrayList<>(lemmas);
+        for (int from = 0; from < all.size(); from += IN_CLAUSE_CHUNK) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("siteId", siteId)
+                    .addValue("lemmas", all.subList(from, Math.min(all.size(), from + IN_CLAUSE_CHUNK)));
+            jdbcTemplate.query(FIND_UNUSED_SQL, parameters,
+                    rs -> { unused.put(rs.getString("lemma"), rs.getInt("id")); });
+        }
+        List<Integer> ids = new ArrayList<>(unused.values());
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK) {
+            jdbcTemplate.update("DELETE FROM lemma WHERE id IN (:ids)",
+                    Map.of("ids", ids.subList(from, Math.min(ids.size(), from + IN_CLAUSE_CHUNK))));
+        }
+        return new ArrayList<>(unused.keySet());
+    }
+
+    public int countBySiteId(int siteId) {
+        Integer count = jdbcTemplate.getJdbcTemplate()
+                .queryForObject("SELECT COUNT(*) FROM lemma WHERE site_id = ?", Integer.class, siteId);
+        return count == null ? 0 : count;
+    }
+
+    // Пачками по DELETE_CHUNK строк, каждая в своей транзакции; строки index сайта должны быть уже удалены
+    public int deleteBySiteId(int siteId) {
+        int deleted = 0;
+        int chunk;
+        do {
+            chunk = jdbcTemplate.getJdbcTemplate().update("DELETE FROM lemma WHERE site_id = ? LIMIT ?",
+                    siteId, DELETE_CHUNK);
+            deleted += chunk;
+        } while (chunk == DELETE_CHUNK);
+        return deleted;
+    }
+
+    public Map<String, Integer> findIds(int siteId, Collection<String> lemmas) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> all = new ArrayList<>(lemmas);
+        for (int from = 0; from < all.size(); from += IN_CLAUSE_CHUNK) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("siteId", siteId)
+                    .addValue("lemmas", all.subList(from, Math.min(all.size(), from + IN_CLAUSE_CHUNK)));
+            jdbcTemplate.query(FIND_IDS_SQL, parameters,
+                    rs -> { ids.put(rs.getString("lemma"), rs.getInt("id")); });
+        }
+        return ids;
+    }
+}
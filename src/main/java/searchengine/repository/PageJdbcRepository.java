@@ -0,0 +1,192 @@
+package searchengine.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import searchengine.model.ContentStorage;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import searchengine.utils.ContentCodec;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пакетная запись страниц через JDBC.
+ * У Page идентификатор IDENTITY, поэтому Hibernate не умеет объединять вставки в пакеты;
+ * здесь пакет отправляется одним batchUpdate, а драйвер MySQL с rewriteBatchedStatements=true
+ * превращает его в многострочный INSERT.
+ */
+@Repository
+public class PageJdbcRepository {
+
+    private static final int IN_CLAUSE_CHUNK = 500;
+    // Страницы несут тела, поэтому пачка удаления меньше, чем у лемм
+    private static final int DELETE_CHUNK = 1000;
+
+    // Повторная вставка той же страницы (uk_page_site_path) молча пропускается
+    private static final String INSERT_SQL =
+            "INSERT IGNORE INTO page (site_id, path, code, content, content_compressed, content_storage, title, " +
+            "text_compressed, content_type, etag, last_modified, content_hash) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+            "UPDATE page SET code = ?, content = ?, content_compressed = ?, content_storage = ?, title = ?, " +
+            "text_compressed = ?, content_type = ?, etag = ?, last_modified = ?, content_hash = ? WHERE id = ?";
+
+    // Для выдачи нужны только заголовок и текст; тело читается лишь у страниц, записанных без них
+    private static final String FIND_FOR_SEARCH_SQL =
+            "SELECT id, site_id, path, title, text_compressed, " +
+            "CASE WHEN title IS NULL OR text_compressed IS NULL THEN content END AS content, " +
+            "CASE WHEN title IS NULL OR text_compressed IS NULL THEN content_compressed END AS content_compressed " +
+            "FROM page WHERE id IN (:ids)";
+
+    private static final String FIND_IDS_SQL =
+            "SELECT id, path FROM page WHERE site_id = :siteId AND path IN (:paths)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public PageJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Возвращает число вставленных строк; с rewriteBatchedStatements драйвер может не сообщать
+    // результат по строкам, тогда каждая строка считается вставленной
+    public int insertAll(List<Page> pages) {
+        int[][] counts = jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_SQL, pages, pages.size(), (statement, page) -> {
+            statement.setInt(1, page.getSite().getId());
+            statement.setString(2, page.getPath());
+            statement.setInt(3, page.getCode());
+            setContent(statement, 4, page);
+            statement.setString(9, page.getContentType());
+            statement.setString(10, page.getEtag());
+            statement.setString(11, page.getLastModified());
+            statement.setObject(12, page.getContentHash(), Types.BIGINT);
+        });
+        int inserted = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                inserted += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+            }
+        }
+        return inserted;
+    }
+
+    // Перезаписывает изменившиеся при повторном обходе страницы по их идентификаторам
+    public void updateAll(List<Page> pages) {
+        jdbcTemplate.getJdbcTemplate().batchUpdate(UPDATE_SQL, pages, pages.size(), (statement, page) -> {
+            statement.setInt(1, page.getCode());
+            setContent(statement, 2, page);
+            statement.setString(7, page.getContentType());
+            statement.setString(8, page.getEtag());
+            statement.setString(9, page.getLastModified());
+            statement.setObject(10, page.getContentHash(), Types.BIGINT);
+            statement.setInt(11, page.getId());
+        });
+    }
+
+    // Что известно о страницах сайта с прошлого обхода: путь → идентификатор и валидаторы.
+    // У страниц, хранящих только текст, валидаторы не отдаются: после ответа 304 ссылки
+    // было бы не из чего взять, поэтому такие страницы загружаются целиком и сверяются по хешу
+    public Map<String, PageState> findStates(int siteId) {
+        Map<String, PageState> states = new HashMap<>();
+        jdbcTemplate.getJdbcTemplate().query(
+                "SELECT id, path, etag, last_modified, content_hash, content_storage FROM page WHERE site_id = ?",
+                rs -> {
+                    long hash = rs.getLong(5);
+                    Long contentHash = rs.wasNull() ? null : hash;
+                    boolean textOnly = ContentStorage.TEXT.name().equals(rs.getString(6));
+                    states.put(rs.getString(2), new PageState(rs.getInt(1), textOnly ? null : rs.getString(3),
+                            textOnly ? null : rs.getString(4), contentHash));
+                }, siteId);
+        return states;
+    }
+
+    // Сохранённый HTML страницы, распакованный при сжатом хранении
+    public String findContent(int pageId) {
+        List<String> content = jdbcTemplate.getJdbcTemplate().query(
+                "SELECT content, content_compressed FROM page WHERE id = ?",
+                (rs, rowNum) -> {
+                    byte[] compressed = rs.getBytes(2);
+                    return compressed == null ? rs.getString(1) : ContentCodec.decompress(compressed);
+                }, pageId);
+        return content.isEmpty() ? null : content.get(0);
+    }
+
+    // Страницы для выдачи поиска: только путь, заголовок и текст, без тела страницы
+    public List<Page> findForSearch(Collection<Integer> pageIds) {
+        List<Page> pages = new ArrayList<>();
+        List<Integer> all = new ArrayList<>(pageIds);
+        for (int from = 0; from < all.size(); from += IN_CLAUSE_CHUNK) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("ids", all.subList(from, Math.min(all.size(), from + IN_CLAUSE_CHUNK)));
+            pages.addAll(jdbcTemplate.query(FIND_FOR_SEARCH_SQL, parameters, (rs, rowNum) -> {
+                Site site = new Site();
+                site.setId(rs.getInt("site_id"));
+                Page page = new Page();
+                page.setId(rs.getInt("id"));
+                page.setSite(site);
+                page.setPath(rs.getString("path"));
+                page.setTitle(rs.getString("title"));
+                page.setTextCompressed(rs.getBytes("text_compressed"));
+                page.setContent(rs.getString("content"));
+                page.setContentCompressed(rs.getBytes("content_compressed"));
+                return page;
+            }));
+        }
+        return pages;
+    }
+
+    public int countBySiteId(int siteId) {
+        Integer count = jdbcTemplate.getJdbcTemplate()
+                .queryForObject("SELECT COUNT(*) FROM page WHERE site_id = ?", Integer.class, siteId);
+        return count == null ? 0 : count;
+    }
+
+    // Пачками по DELETE_CHUNK строк, каждая в своей транзакции; строки index сайта должны быть уже удалены
+    public int deleteBySiteId(int siteId) {
+        int deleted = 0;
+        int chunk;
+        do {
+            chunk = jdbcTemplate.getJdbcTemplate().update("DELETE FROM page WHERE site_id = ? LIMIT ?",
+                    siteId, DELETE_CHUNK);
+            deleted += chunk;
+        } while (chunk == DELETE_CHUNK);
+        return deleted;
+    }
+
+    // Идентификаторы страниц сайта по их путям
+    public Map<String, Integer> findIds(int siteId, Collection<String> paths) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> all = new ArrayList<>(paths);
+        for (int from = 0; from < all.size(); from += IN_CLAUSE_CHUNK) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("siteId", siteId)
+                    .addValue("paths", all.subList(from, Math.min(all.size(), from + IN_CLAUSE_CHUNK)));
+            jdbcTemplate.query(FIND_IDS_SQL, parameters,
+                    rs -> { ids.put(rs.getString("path"), rs.getInt("id")); });
+        }
+        return ids;
+    }
+
+    // Тело пишется как хранится: при сжатии content пустой, а распакованный getContent() не нужен.
+    // Следом идут заголовок и сжатый текст, извлечённые при загрузке
+    private static void setContent(PreparedStatement statement, int index, Page page) throws SQLException {
+        byte[] compressed = page.getContentCompressed();
+        statement.setString(index, compressed == null ? page.getContent() : "");
+        statement.setBytes(index + 1, compressed);
+        statement.setString(index + 2, page.getContentStorage() == null ? null : page.getContentStorage().name());
+        // Без извлечённого текста заголовок не пишется: getTitle() разобрал бы тело ради пустой строки
+        statement.setString(index + 3, page.getTextCompressed() == null ? null : page.getTitle());
+        statement.setBytes(index + 4, page.getTextCompressed());
+    }
+
+    public record PageState(int id, String etag, String lastModified, Long contentHash) {
+    }
+}
@@ -1,7 +1,10 @@
 package searchengine.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import searchengine.model.Site;
 import searchengine.model.IndexingStatus;
 
@@ -14,4 +17,19 @@ public interface SiteRepository extends JpaRepository<Site, Integer> {
 
     // Найти все сайты по статусу
     List<Site> findAllByStatus(IndexingStatus status);
+
+    // Строки поколений сайта: URL содержит метку поколения
+    List<Site> findAllByUrlContaining(String fragment);
+
+    // Освобождает URL строки до того, как его займёт новое поколение сайта
+    @Modifying
+    @Transactional
+    @Query("UPDATE Site s SET s.url = :url WHERE s.id = :id")
+    int updateUrl(int id, String url);
+
+    // Удаление без загрузки сущности: строки page, lemma и index сайта должны быть уже удалены
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Site s WHERE s.id = :id")
+    int deleteSiteById(int id);
 }
@@ -0,0 +1,172 @@
+package searchengine.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import searchengine.config.CrawlerSettings;
+import searchengine.utils.UrlHash;
+import searchengine.utils.VisitedUrlSet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Контрольные точки обхода на локальном диске, по файлу на сайт из конфигурации:
+ * строка site, в которую шёл обход, очередь ссылок (вместе с теми, что загружались в момент
+ * сохранения) и множество посещённых URL. Файл заменяется атомарно, поэтому после сбоя
+ * всегда читается последняя целиком записанная точка.
+ */
+@Component
+public class CrawlCheckpoints {
+    private static final Logger logger = LoggerFactory.getLogger(CrawlCheckpoints.class);
+    private static final int MAGIC = 0x43524b31; // "CRK1"
+    // Точка другой версии не читается: обход сайта начинается заново
+    private static final int VERSION = 2;
+    private static final String EXTENSION = ".ckpt";
+
+    private final CrawlerSettings settings;
+
+    public CrawlCheckpoints(CrawlerSettings settings) {
+        this.settings = settings;
+    }
+
+    public boolean isEnabled() {
+        return settings.getCheckpoint().isEnabled();
+    }
+
+    public void save(int siteId, String siteUrl, SiteCrawler.Snapshot snapshot) throws IOException {
+        long started = System.currentTimeMillis();
+        Path target = file(siteUrl);
+        Files.createDirectories(target.getParent());
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(siteId);
+            out.writeUTF(siteUrl);
+            out.writeInt(snapshot.frontier().size());
+            for (CrawlFrontier.Entry entry : snapshot.frontier()) {
+                out.writeUTF(entry.url());
+                out.writeInt(entry.depth());
+                out.writeByte(entry.priority());
+            }
+            VisitedUrlSet.Snapshot visited = snapshot.visited();
+            writeLongs(out, visited.hashes());
+            writeLongs(out, visited.overflow());
+            out.writeInt(visited.overflowSize());
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        logger.debug("Контрольная точка обхода {} сохранена за {} мс: {} ссылок в очереди, {} посещённых URL",
+                siteUrl, System.currentTimeMillis() - started, snapshot.frontier().size(),
+                snapshot.visited().hashes().length + snapshot.visited().overflowSize());
+    }
+
+    // Контрольная точка сайта или null, если её нет или она не читается
+    public Checkpoint load(String siteUrl) {
+        Path path = file(siteUrl);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            readHeader(in);
+            int siteId = in.readInt();
+            String url = in.readUTF();
+            int frontierSize = in.readInt();
+            List<CrawlFrontier.Entry> frontier = new ArrayList<>(frontierSize);
+            for (int i = 0; i < frontierSize; i++) {
+                frontier.add(new CrawlFrontier.Entry(in.readUTF(), in.readInt(), in.readByte()));
+            }
+            VisitedUrlSet.Snapshot visited = new VisitedUrlSet.Snapshot(readLongs(in), readLongs(in), in.readInt());
+            return new Checkpoint(siteId, url, frontier, visited);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Контрольная точка обхода {} не читается: {}", siteUrl, e.getMessage());
+            return null;
+        }
+    }
+
+    // Строка site, к которой относится контрольная точка сайта, или null
+    public Integer siteId(String siteUrl) {
+        return readSiteId(file(siteUrl));
+    }
+
+    // Строки site всех сохранённых контрольных точек: их данные нельзя удалять
+    public Set<Integer> siteIds() {
+        Set<Integer> siteIds = new HashSet<>();
+        Path directory = Path.of(settings.getCheckpoint().getDirectory());
+        if (!Files.isDirectory(directory)) {
+            return siteIds;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path path : stream) {
+                Integer siteId = readSiteId(path);
+                if (siteId != null) {
+                    siteIds.add(siteId);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Не удалось прочитать каталог контрольных точек: {}", e.getMessage());
+        }
+        return siteIds;
+    }
+
+    public void delete(String siteUrl) {
+        try {
+            Files.deleteIfExists(file(siteUrl));
+        } catch (IOException e) {
+            logger.warn("Не удалось удалить контрольную точку обхода {}: {}", siteUrl, e.getMessage());
+        }
+    }
+
+    private Path file(String siteUrl) {
+        return Path.of(settings.getCheckpoint().getDirectory(), Long.toHexString(UrlHash.hash(siteUrl)) + EXTENSION);
+    }
+
+    private static Integer readSiteId(Path path) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            readHeader(in);
+            return in.readInt();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("неизвестный формат файла");
+        }
+    }
+
+    private static void writeLongs(DataOutputStream out, long[] values) throws IOException {
+        out.writeInt(values.length);
+        for (long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    private static long[] readLongs(DataInputStream in) throws IOException {
+        long[] values = new long[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readLong();
+        }
+        return values;
+    }
+
+    /**
+     * Сохранённое состояние обхода: siteId — строка site, в которую писались страницы,
+     * siteUrl — URL сайта из конфигурации.
+     */
+    public record Checkpoint(int siteId, String siteUrl, List<CrawlFrontier.Entry> frontier,
+                             VisitedUrlSet.Snapshot visited) {
+    }
+}
@@ -0,0 +1,88 @@
+package searchengine.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Очередь обхода сайта. Ссылки выдаются по приоритету: сначала стартовая страница и адреса
+ * из sitemap.xml, затем найденные на страницах — по возрастанию глубины (обход в ширину),
+ * при равной глубине в порядке добавления. Важные и неглубокие страницы индексируются первыми.
+ * Дубликаты и лимиты глубины и числа страниц отсекает вызывающий до добавления.
+ */
+public class CrawlFrontier {
+    // Стартовая страница и адреса из sitemap.xml
+    public static final int PRIORITY_SEED = 0;
+    // Ссылки, найденные на страницах
+    public static final int PRIORITY_LINK = 1;
+
+    private static final Comparator<Item> ORDER = Comparator
+            .comparingInt((Item item) -> item.entry().priority())
+            .thenComparingInt(item -> item.entry().depth())
+            .thenComparingLong(Item::sequence);
+
+    private final PriorityBlockingQueue<Item> queue = new PriorityBlockingQueue<>(64, ORDER);
+    private final AtomicLong sequence = new AtomicLong();
+
+    public void add(Entry entry) {
+        queue.add(new Item(entry, sequence.getAndIncrement()));
+    }
+
+    public void addAll(Collection<Entry> entries) {
+        entries.forEach(this::add);
+    }
+
+    // Забирает до max ссылок с наивысшим приоритетом, дожидаясь первой не дольше timeout
+    public List<Entry> poll(int max, long timeout, TimeUnit unit) throws InterruptedException {
+        Item first = queue.poll(timeout, unit);
+        if (first == null) {
+            return List.of();
+        }
+        List<Item> items = new ArrayList<>(max);
+        items.add(first);
+        queue.drainTo(items, max - 1);
+        List<Entry> batch = new ArrayList<>(items.size());
+        items.forEach(item -> batch.add(item.entry()));
+        return batch;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    // Копия очереди для контрольной точки, порядок не сохраняется
+    public List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>(queue.size());
+        for (Item item : queue) {
+            entries.add(item.entry());
+        }
+        return entries;
+    }
+
+    /**
+     * Ссылка в очереди: depth — число переходов от стартовой страницы
+     * (адреса из sitemap.xml считаются на глубине 1).
+     */
+    public record Entry(String url, int depth, int priority) {
+
+        public static Entry seed(String url, int depth) {
+            return new Entry(url, depth, PRIORITY_SEED);
+        }
+
+        // Ссылка, найденная на этой странице
+        public Entry child(String childUrl) {
+            return new Entry(childUrl, depth + 1, PRIORITY_LINK);
+        }
+    }
+
+    private record Item(Entry entry, long sequence) {
+    }
+}
@@ -0,0 +1,107 @@
+package searchengine.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Метрики обхода в Micrometer (доступны через /actuator/metrics), все с тегом site.
+ * Счётчики и таймеры накапливаются между обходами — скорость считает система мониторинга
+ * по приросту crawler.pages; датчики размеров очередей живут только пока идёт обход сайта.
+ */
+@Component
+public class CrawlMetrics {
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry registry;
+
+    public CrawlMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public SiteMetrics forSite(String siteUrl) {
+        return new SiteMetrics(siteUrl);
+    }
+
+    /**
+     * Метрики одного сайта. close() снимает датчики, зарегистрированные для текущего обхода.
+     */
+    public final class SiteMetrics implements AutoCloseable {
+        private final String site;
+        private final Counter pages;
+        private final Counter fetchErrors;
+        private final Timer fetch;
+        private final Timer lemmatize;
+        private final Timer pageWrite;
+        private final Timer indexWrite;
+        private final DistributionSummary batchSize;
+        private final List<Meter> gauges = new CopyOnWriteArrayList<>();
+
+        private SiteMetrics(String site) {
+            this.site = site;
+            this.pages = Counter.builder("crawler.pages")
+                    .description("Загруженные страницы").tag("site", site).register(registry);
+            this.fetchErrors = Counter.builder("crawler.fetch.errors")
+                    .description("Запросы, завершившиеся ошибкой сети или таймаутом").tag("site", site).register(registry);
+            this.fetch = Timer.builder("crawler.fetch")
+                    .description("Загрузка страницы без ожидания бюджета хоста").tag("site", site)
+                    .publishPercentiles(PERCENTILES).publishPercentileHistogram().register(registry);
+            this.lemmatize = Timer.builder("crawler.lemmatize")
+                    .description("Лемматизация текста страницы").tag("site", site)
+                    .publishPercentiles(PERCENTILES).register(registry);
+            this.pageWrite = Timer.builder("crawler.db.write")
+                    .description("Пакетная запись в базу").tag("site", site).tag("table", "page")
+                    .publishPercentiles(PERCENTILES).register(registry);
+            this.indexWrite = Timer.builder("crawler.db.write")
+                    .description("Пакетная запись в базу").tag("site", site).tag("table", "index")
+                    .publishPercentiles(PERCENTILES).register(registry);
+            this.batchSize = DistributionSummary.builder("crawler.db.batch.size")
+                    .description("Страниц в пачке записи").tag("site", site).register(registry);
+        }
+
+        public void fetched(int statusCode, long nanos) {
+            pages.increment();
+            fetch.record(nanos, TimeUnit.NANOSECONDS);
+            registry.counter("crawler.http.responses", "site", site, "status", Integer.toString(statusCode)).increment();
+        }
+
+        public void fetchFailed(long nanos) {
+            fetchErrors.increment();
+            fetch.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void lemmatized(long nanos) {
+            lemmatize.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void batchWritten(int pages, long nanos) {
+            batchSize.record(pages);
+            pageWrite.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void batchIndexed(long nanos) {
+            indexWrite.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        // Размер очереди или множества, пока идёт обход: crawler.frontier.size, crawler.visited.size и т. п.
+        public void gauge(String name, String description, Supplier<Number> value) {
+            gauges.add(Gauge.builder(name, value).description(description).tag("site", site)
+                    .strongReference(true).register(registry));
+        }
+
+        @Override
+        public void close() {
+            gauges.forEach(registry::remove);
+            gauges.clear();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package searchengine.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import searchengine.config.PolitenessSettings;
+import searchengine.model.Site;
+import searchengine.utils.TokenBucket;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Планировщик вежливого обхода: для каждого хоста держит ведро токенов
+ * (частота и всплеск запросов) и ограничение на число одновременных соединений.
+ * Поток ждёт только тогда, когда бюджет его хоста исчерпан.
+ */
+@Component
+public class CrawlScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(CrawlScheduler.class);
+
+    private final PolitenessSettings settings;
+    private final Map<String, HostBudget> budgets = new ConcurrentHashMap<>();
+
+    public CrawlScheduler(PolitenessSettings settings) {
+        this.settings = settings;
+    }
+
+    // Ждёт свободное соединение и токен хоста сайта; разрешение нужно закрыть после запроса
+    public Permit acquire(Site site) throws InterruptedException {
+        HostBudget budget = budgets.computeIfAbsent(hostOf(site.getUrl()), this::createBudget);
+        budget.connections.acquire();
+        try {
+            budget.bucket.acquire();
+        } catch (InterruptedException e) {
+            budget.connections.release();
+            throw e;
+        }
+        return new Permit(budget.connections);
+    }
+
+    /**
+     * Crawl-delay из robots.txt: частота хоста снижается до одного запроса за delay без всплесков,
+     * если настроенный лимит мягче. Действует до перезапуска приложения.
+     */
+    public void respectCrawlDelay(Site site, Duration delay) {
+        String host = hostOf(site.getUrl());
+        double delayRate = (double) TimeUnit.SECONDS.toNanos(1) / delay.toNanos();
+        budgets.compute(host, (key, budget) -> {
+            HostBudget current = budget != null ? budget : createBudget(key);
+            if (current.rate() > 0 && current.rate() <= delayRate) {
+                return current;
+            }
+            logger.info("Хост {} просит паузу {} мс между запросами: {} запр/с без всплесков",
+                    host, delay.toMillis(), delayRate);
+            return new HostBudget(new TokenBucket(delayRate, 1), current.connections(), delayRate);
+        });
+    }
+
+    public static String hostOf(String url) {
+        String host = URI.create(url).getHost();
+        return host == null ? url : host.toLowerCase(Locale.ROOT);
+    }
+
+    private HostBudget createBudget(String host) {
+        double rate = settings.getRequestsPerSecond();
+        int burst = settings.getBurst();
+        int maxConcurrent = settings.getMaxConcurrent();
+        for (PolitenessSettings.HostLimit limit : settings.getHosts()) {
+            if (host.equalsIgnoreCase(limit.getHost())) {
+                rate = limit.getRequestsPerSecond() != null ? limit.getRequestsPerSecond() : rate;
+                burst = limit.getBurst() != null ? limit.getBurst() : burst;
+                maxConcurrent = limit.getMaxConcurrent() != null ? limit.getMaxConcurrent() : maxConcurrent;
+            }
+        }
+        logger.info("Лимиты для хоста {}: {} запр/с, всплеск {}, соединений {}", host, rate, burst, maxConcurrent);
+        return new HostBudget(new TokenBucket(rate, burst), new Semaphore(Math.max(1, maxConcurrent)), rate);
+    }
+
+    // rate <= 0 — без ограничения частоты
+    private record HostBudget(TokenBucket bucket, Semaphore connections, double rate) {
+    }
+
+    public static final class Permit implements AutoCloseable {
+        private final Semaphore connections;
+        private boolean released;
+
+        private Permit(Semaphore connections) {
+            this.connections = connections;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                connections.release();
+            }
+        }
+    }
+}
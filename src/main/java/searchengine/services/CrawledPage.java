@@ -0,0 +1,18 @@
+package searchengine.services;
+
+import searchengine.model.Page;
+
+import java.util.Map;
+
+// Загруженная страница и её леммы; леммы считаются в потоке обхода, до постановки в очередь записи.
+// positions — смещения первых вхождений каждой леммы в тексте страницы
+public record CrawledPage(Page page, Map<String, Integer> lemmas, Map<String, int[]> positions) {
+
+    public CrawledPage(Page page, LemmaService.PageLemmas pageLemmas) {
+        this(page, pageLemmas.counts(), pageLemmas.positions());
+    }
+
+    public static CrawledPage withoutLemmas(Page page) {
+        return new CrawledPage(page, Map.of(), Map.of());
+    }
+}
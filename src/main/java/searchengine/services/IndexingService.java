@@ -3,61 +3,116 @@ package searchengine.services;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import searchengine.config.CrawlMode;
+import searchengine.config.CrawlerSettings;
 import searchengine.config.SitesList;
 import searchengine.model.IndexingStatus;
 import searchengine.model.Page;
-import searchengine.repository.PageRepository;
+import searchengine.repository.IndexJdbcRepository;
+import searchengine.repository.LemmaJdbcRepository;
+import searchengine.repository.PageJdbcRepository;
 import searchengine.repository.SiteRepository;
+import searchengine.utils.RobotsTxt;
+import searchengine.utils.UrlNormalizer;
+import searchengine.utils.VisitedUrlSet;
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 @Service
 public class IndexingService {
 
     private static final Logger logger = LoggerFactory.getLogger(IndexingService.class);
+    private static final long CHECKPOINT_WRITE_TIMEOUT_MS = 60_000;
 
     private final SitesList sitesList;
     private final SiteRepository siteRepository;
-    private final PageRepository pageRepository;
-
+    private final PageJdbcRepository pageJdbcRepository;
+    private final LemmaJdbcRepository lemmaJdbcRepository;
+    private final IndexJdbcRepository indexJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LemmaService lemmaService;
+    private final CrawlerSettings crawlerSettings;
+    private final CrawlScheduler crawlScheduler;
+    private final PageDownloader pageDownloader;
+    private final SearchIndex searchIndex;
+    private final StatisticsCounters statisticsCounters;
+    private final CrawlMetrics crawlMetrics;
+    private final SiteGenerations siteGenerations;
+    private final CrawlCheckpoints crawlCheckpoints;
+    private final SiteDiscovery siteDiscovery;
 
     private volatile boolean indexingInProgress = false;
     private ExecutorService executorService;
-    private ForkJoinPool forkJoinPool;
-
-    public IndexingService(SitesList sitesList, SiteRepository siteRepository,  PageRepository pageRepository ) {
+    // Общий лимит одновременных запросов для всех сайтов текущего запуска
+    private volatile Semaphore globalCrawlPermits;
+    private final Set<SiteCrawler> activeCrawlers = ConcurrentHashMap.newKeySet();
+    // Переиндексация отдельных страниц идёт по одной
+    private final Object singlePageLock = new Object();
+
+    public IndexingService(SitesList sitesList, SiteRepository siteRepository,
+                           PageJdbcRepository pageJdbcRepository, LemmaJdbcRepository lemmaJdbcRepository,
+                           IndexJdbcRepository indexJdbcRepository, TransactionTemplate transactionTemplate,
+                           LemmaService lemmaService, CrawlerSettings crawlerSettings,
+                           CrawlScheduler crawlScheduler, PageDownloader pageDownloader, SearchIndex searchIndex,
+                           StatisticsCounters statisticsCounters, CrawlMetrics crawlMetrics,
+                           SiteGenerations siteGenerations, CrawlCheckpoints crawlCheckpoints,
+                           SiteDiscovery siteDiscovery) {
         this.sitesList = sitesList;
         this.siteRepository = siteRepository;
-        this.pageRepository = pageRepository;
-
+        this.pageJdbcRepository = pageJdbcRepository;
+        this.lemmaJdbcRepository = lemmaJdbcRepository;
+        this.indexJdbcRepository = indexJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.lemmaService = lemmaService;
+        this.crawlerSettings = crawlerSettings;
+        this.crawlScheduler = crawlScheduler;
+        this.pageDownloader = pageDownloader;
+        this.searchIndex = searchIndex;
+        this.statisticsCounters = statisticsCounters;
+        this.crawlMetrics = crawlMetrics;
+        this.siteGenerations = siteGenerations;
+        this.crawlCheckpoints = crawlCheckpoints;
+        this.siteDiscovery = siteDiscovery;
 
     }
 
-    public synchronized boolean isIndexingInProgress() {
+    // Флаг volatile: метод вызывается из каждой задачи обхода, в том числе из виртуальных потоков,
+    // поэтому синхронизация здесь не нужна и только создавала бы конкуренцию за монитор
+    public boolean isIndexingInProgress() {
         return indexingInProgress;
     }
 
-    public synchronized void startFullIndexing() {
-        if (indexingInProgress) {
-            logger.warn("Попытка запустить индексацию, которая уже выполняется.");
-            throw new IllegalStateException("Индексация уже запущена.");
+    // incremental: уже проиндексированные сайты обходятся повторно без очистки таблиц,
+    // перезаписываются только изменившиеся страницы.
+    // resume: обход сайтов с контрольной точкой продолжается с неё, остальные обходятся повторно
+    public synchronized void startIndexing(boolean incremental, boolean resume) {
+        // Под монитором переиндексации страницы: обход не начнётся, пока идёт её транзакция
+        synchronized (singlePageLock) {
+            if (indexingInProgress) {
+                logger.warn("Попытка запустить индексацию, которая уже выполняется.");
+                throw new IllegalStateException("Индексация уже запущена.");
+            }
+            indexingInProgress = true;
         }
-        indexingInProgress = true;
-        logger.info("Индексация начата.");
+        logger.info(resume ? "Продолжение обхода начато." : incremental ? "Повторный обход начат." : "Индексация начата.");
 
         executorService = Executors.newSingleThreadExecutor();
         executorService.submit(() -> {
             try {
-                performIndexing();
+                performIndexing(incremental, resume);
             } catch (Exception e) {
                 logger.error("Ошибка во время индексации: ", e);
             } finally {
@@ -79,34 +134,61 @@ public class IndexingService {
         if (executorService != null) {
             executorService.shutdownNow();
         }
-        if (forkJoinPool != null) {
-            forkJoinPool.shutdownNow();
-        }
+        activeCrawlers.forEach(SiteCrawler::stop);
 
         updateSitesStatusToFailed("Индексация остановлена пользователем");
     }
 
-    public void indexPage(String url) {
-        logger.info("Индексация отдельной страницы: {}", url);
-
-        // Проверяем, находится ли URL в рамках указанных сайтов
-        if (!isUrlValid(url)) {
-            logger.error("URL {} находится за пределами разрешенных сайтов.", url);
-            throw new IllegalArgumentException("Данная страница находится за пределами сайтов, указанных в конфигурационном файле");
-        }
+    /**
+     * Переиндексация одной страницы без обхода сайта. Страница и её леммы записываются
+     * в одной транзакции: frequency меняется только на разницу между старым и новым набором лемм
+     * страницы, после чего поисковый индекс получает дельту по этой странице.
+     */
+    public void indexPage(String url) throws IOException, InterruptedException {
+        searchengine.config.Site configSite = sitesList.getSites().stream()
+                .filter(site -> url.startsWith(site.getUrl()))
+                .findFirst()
+                .orElseThrow(() -> {
+                    logger.error("URL {} находится за пределами разрешенных сайтов.", url);
+                    return new IllegalArgumentException(
+                            "Данная страница находится за пределами сайтов, указанных в конфигурационном файле");
+                });
+        String normalizedUrl = Objects.requireNonNullElse(UrlNormalizer.normalize(url), url);
 
-        try {
-            searchengine.model.Site site = getSiteByUrl(url);
-            if (site == null) {
-                logger.error("Сайт для URL {} не найден.", url);
-                return;
+        synchronized (singlePageLock) {
+            // Проверка под тем же монитором, что и запуск обхода в startIndexing:
+            // обход держит свой кеш идентификаторов лемм, параллельная правка таблиц его испортила бы
+            if (indexingInProgress) {
+                throw new IllegalStateException("Индексация уже запущена");
             }
-
-            String content = fetchPageContent(url);
-            savePageIfUnique(url, content, site);
-
-        } catch (Exception e) {
-            logger.error("Ошибка индексации страницы {}: {}", url, e.getMessage());
+            logger.info("Индексация отдельной страницы: {}", normalizedUrl);
+            searchengine.model.Site site = findOrCreateSite(configSite);
+            StatisticsCounters.SiteCounters counters = statisticsCounters.continueIndexing(site);
+            PageFetcher pageFetcher = new PageFetcher(site, pageDownloader, crawlScheduler, lemmaService,
+                    KnownPages.none(), crawlerSettings.getContentStorage(), crawlMetrics.forSite(site.getUrl()));
+            CrawledPage crawledPage = pageFetcher.fetch(normalizedUrl).crawledPage();
+            Page page = crawledPage.page();
+
+            PageIndexer pageIndexer = new PageIndexer(site, pageJdbcRepository, lemmaJdbcRepository,
+                    indexJdbcRepository, transactionTemplate, counters);
+            // Транзакция PageIndexer присоединяется к этой: страница и леммы фиксируются вместе,
+            // а счётчики меняются только после фиксации
+            int pagesAdded = transactionTemplate.execute(status -> {
+                int inserted = 0;
+                Integer pageId = pageJdbcRepository.findIds(site.getId(), List.of(page.getPath())).get(page.getPath());
+                if (pageId == null) {
+                    inserted = pageJdbcRepository.insertAll(List.of(page));
+                } else {
+                    page.setId(pageId);
+                    pageJdbcRepository.updateAll(List.of(page));
+                }
+                pageIndexer.preloadLemmaIds(crawledPage.lemmas().keySet());
+                pageIndexer.index(List.of(crawledPage));
+                return inserted;
+            });
+            counters.pagesAdded(pagesAdded);
+            searchIndex.refreshPages(site, pageIndexer.indexedPages(), pageIndexer.getIndexedPageDelta());
+            logger.info("Страница {} переиндексирована: {} лемм.", normalizedUrl, crawledPage.lemmas().size());
         }
     }
 
@@ -119,46 +201,34 @@ public class IndexingService {
         return !indexingInProgress;
     }
 
-    private searchengine.model.Site getSiteByUrl(String url) {
-        return sitesList.getSites().stream()
-                .filter(site -> url.startsWith(site.getUrl()))
-                .map(site -> siteRepository.findByUrl(site.getUrl()))
-                .findFirst()
-                .orElse(null);
-    }
-
-    private String fetchPageContent(String url) {
-        // Здесь может быть код для загрузки содержимого страницы через HTTP-запрос
-        logger.info("Загрузка содержимого страницы: {}", url);
-        return "Пример содержимого страницы."; // Заглушка
-    }
-
-    private void performIndexing() {
+    private void performIndexing(boolean incremental, boolean resume) {
         List<searchengine.config.Site> sites = sitesList.getSites();
         if (sites == null || sites.isEmpty()) {
             logger.warn("Список сайтов для индексации пуст.");
             return;
         }
 
+        globalCrawlPermits = new Semaphore(crawlerSettings.getMaxInFlight());
         executorService = Executors.newFixedThreadPool(sites.size());
         try {
             for (searchengine.config.Site site : sites) {
                 executorService.submit(() -> {
                     logger.info("Индексация сайта: {} ({})", site.getName(), site.getUrl());
                     try {
-                        deleteSiteData(site.getUrl());
-                        searchengine.model.Site newSite = new searchengine.model.Site();
-                        newSite.setName(site.getName());
-                        newSite.setUrl(site.getUrl());
-                        newSite.setStatus(IndexingStatus.INDEXING);
-                        newSite.setStatusTime(LocalDateTime.now());
-                        siteRepository.save(newSite);
-                        crawlAndIndexPages(newSite, site.getUrl());
-                        if (indexingInProgress) {
-                            updateSiteStatusToIndexed(newSite);
-                        } else {
-                            logger.warn("Индексация была прервана. Статус сайта {} не обновлен на INDEXED.", site.getName());
+                        searchengine.model.Site existingSite = siteRepository.findByUrl(site.getUrl());
+                        CrawlCheckpoints.Checkpoint checkpoint = resume ? crawlCheckpoints.load(site.getUrl()) : null;
+                        searchengine.model.Site checkpointSite = checkpoint == null ? null
+                                : siteRepository.findById(checkpoint.siteId()).orElse(null);
+                        if (checkpointSite != null) {
+                            resumeSite(checkpointSite, existingSite, checkpoint);
+                            return;
+                        }
+                        discardCheckpoint(site.getUrl(), existingSite);
+                        if ((incremental || resume) && existingSite != null) {
+                            recrawlSite(existingSite, null);
+                            return;
                         }
+                        reindexSite(site, existingSite);
                     } catch (Exception e) {
                         handleIndexingError(site.getUrl(), e);
                     }
@@ -179,28 +249,196 @@ public class IndexingService {
         }
     }
 
-    private void crawlAndIndexPages(searchengine.model.Site site, String startUrl) {
-        forkJoinPool = new ForkJoinPool();
+    /**
+     * Полная переиндексация: новое поколение сайта обходится в отдельную строку site,
+     * а поиск всё это время идёт по прежнему поколению. Переключение и удаление старого
+     * поколения — в SiteGenerations.
+     */
+    private void reindexSite(searchengine.config.Site configSite, searchengine.model.Site liveSite) {
+        searchengine.model.Site shadow = siteGenerations.createShadow(configSite);
+        StatisticsCounters.SiteCounters counters = statisticsCounters.startIndexing(shadow);
+        crawlGeneration(shadow, liveSite, counters, KnownPages.none(), null);
+    }
+
+    /**
+     * Продолжение обхода с контрольной точки. Строка поколения дообходится и затем переключается
+     * как при полной переиндексации; строка самого сайта — как при повторном обходе.
+     * Страницы, записанные до остановки, известны обходу: загруженные заново перезаписываются на месте.
+     */
+    private void resumeSite(searchengine.model.Site site, searchengine.model.Site liveSite,
+                            CrawlCheckpoints.Checkpoint checkpoint) throws InterruptedException {
+        if (!SiteGenerations.isGeneration(site.getUrl())) {
+            recrawlSite(site, checkpoint);
+            return;
+        }
+        site.updateStatus(IndexingStatus.INDEXING, null);
+        siteRepository.save(site);
+        statisticsCounters.restore(site, pageJdbcRepository.countBySiteId(site.getId()),
+                lemmaJdbcRepository.countBySiteId(site.getId()));
+        StatisticsCounters.SiteCounters counters = statisticsCounters.continueIndexing(site);
+        crawlGeneration(site, liveSite, counters, KnownPages.load(site.getId(), pageJdbcRepository), checkpoint);
+    }
+
+    private void crawlGeneration(searchengine.model.Site shadow, searchengine.model.Site liveSite,
+                                 StatisticsCounters.SiteCounters counters, KnownPages knownPages,
+                                 CrawlCheckpoints.Checkpoint checkpoint) {
+        String siteUrl = SiteGenerations.liveUrl(shadow.getUrl());
         try {
-            forkJoinPool.invoke(new PageCrawler(site, startUrl, new HashSet<>(), pageRepository, this));
+            searchengine.model.Site crawlSite = SiteGenerations.crawlView(shadow);
+            PageIndexer pageIndexer = new PageIndexer(crawlSite, pageJdbcRepository, lemmaJdbcRepository,
+                    indexJdbcRepository, transactionTemplate, counters);
+            if (checkpoint != null) {
+                pageIndexer.preloadLemmaIds();
+            }
+            crawlAndIndexPages(crawlSite, siteUrl, pageIndexer, counters, knownPages, checkpoint);
+            if (indexingInProgress) {
+                siteGenerations.switchOver(shadow, liveSite);
+            } else {
+                logger.warn("Индексация была прервана. Сайт {} не переключён на новое поколение.", shadow.getName());
+                siteGenerations.abandon(shadow, liveSite, "Индексация остановлена пользователем");
+            }
+        } catch (Exception e) {
+            logger.error("Ошибка при индексации сайта {}: {}", siteUrl, e.getMessage());
+            siteGenerations.abandon(shadow, liveSite, e.getMessage());
+        }
+    }
+
+    // Обход начинается заново: строка поколения, к которой относилась контрольная точка, больше не нужна
+    private void discardCheckpoint(String siteUrl, searchengine.model.Site liveSite) {
+        Integer siteId = crawlCheckpoints.siteId(siteUrl);
+        if (siteId == null) {
+            return;
+        }
+        crawlCheckpoints.delete(siteUrl);
+        if (liveSite == null || liveSite.getId() != siteId) {
+            siteRepository.findById(siteId)
+                    .filter(site -> SiteGenerations.isGeneration(site.getUrl()))
+                    .ifPresent(siteGenerations::discard);
+        }
+    }
+
+    /**
+     * Повторный обход проиндексированного сайта. Данные не удаляются, и сайт остаётся доступным
+     * для поиска: неизменившиеся страницы (ответ 304 или тот же хеш тела) не перезаписываются,
+     * изменившиеся заменяются на месте, а поисковый индекс получает дельту только по ним.
+     * Страницы, до которых обход не дошёл, остаются как есть.
+     */
+    private void recrawlSite(searchengine.model.Site site,
+                             CrawlCheckpoints.Checkpoint checkpoint) throws InterruptedException {
+        // Счётчики продолжают текущие значения, поэтому сначала сверяем их с базой
+        statisticsCounters.reconcile(site, pageJdbcRepository.countBySiteId(site.getId()),
+                lemmaJdbcRepository.countBySiteId(site.getId()));
+        site.setStatus(IndexingStatus.INDEXING);
+        site.setLastError(null);
+        site.setStatusTime(LocalDateTime.now());
+        siteRepository.save(site);
+        StatisticsCounters.SiteCounters counters = statisticsCounters.continueIndexing(site);
+
+        KnownPages knownPages = KnownPages.load(site.getId(), pageJdbcRepository);
+        logger.info("Повторный обход сайта {}: известно {} страниц.", site.getUrl(), knownPages.size());
+        PageIndexer pageIndexer = new PageIndexer(site, pageJdbcRepository, lemmaJdbcRepository,
+                indexJdbcRepository, transactionTemplate, counters);
+        pageIndexer.preloadLemmaIds();
+        try {
+            crawlAndIndexPages(site, site.getUrl(), pageIndexer, counters, knownPages, checkpoint);
         } finally {
-            forkJoinPool.shutdown();
+            // Изменения уже записаны в базу — даже после остановки поиск должен их видеть
+            searchIndex.refreshPages(site, pageIndexer.indexedPages(), pageIndexer.getIndexedPageDelta());
+        }
+        if (indexingInProgress) {
+            if (searchIndex.get(site.getId()) == null) {
+                // Продолжена первая индексация сайта — его индекса в поиске ещё нет
+                searchIndex.rebuild(site);
+            }
+            updateSiteStatusToIndexed(site);
+        } else {
+            logger.warn("Повторный обход был прерван. Статус сайта {} не обновлен на INDEXED.", site.getName());
         }
     }
 
-    private void deleteSiteData(String siteUrl) {
-        searchengine.model.Site site = siteRepository.findByUrl(siteUrl);
-        if (site != null) {
-            int pagesDeleted = pageRepository.deleteAllBySiteId(site.getId());
-            siteRepository.delete(site);
-            logger.info("Удалено {} записей из таблицы page для сайта {}.", pagesDeleted, siteUrl);
+    private void crawlAndIndexPages(searchengine.model.Site site, String startUrl, PageIndexer pageIndexer,
+                                    StatisticsCounters.SiteCounters counters, KnownPages knownPages,
+                                    CrawlCheckpoints.Checkpoint checkpoint) throws InterruptedException {
+        // Закрытие PageWriter дописывает очередь — и при завершении обхода, и при остановке;
+        // датчики сайта снимаются после него
+        try (CrawlMetrics.SiteMetrics metrics = crawlMetrics.forSite(site.getUrl());
+             PageWriter pageWriter = new PageWriter(site.getUrl(), pageJdbcRepository, pageIndexer, counters, metrics,
+                     crawlerSettings.getWriteQueueCapacity(), crawlerSettings.getWriteBatchSize())) {
+            RobotsTxt robots = siteDiscovery.loadRobots(site);
+            PageProcessor pageProcessor = new PageProcessor(site, pageWriter,
+                    new PageFetcher(site, pageDownloader, crawlScheduler, lemmaService, knownPages,
+                            crawlerSettings.getContentStorage(), metrics), robots);
+            VisitedUrlSet visitedUrls = new VisitedUrlSet(crawlerSettings.getVisited().memoryBudgetBytes(),
+                    crawlerSettings.getVisited().bloomShare());
+            metrics.gauge("crawler.visited.size", "Посещённые URL", visitedUrls::size);
+            metrics.gauge("crawler.write.queue.size", "Страниц в очереди на запись", pageWriter::queueSize);
+            String normalizedStartUrl = Objects.requireNonNullElse(UrlNormalizer.normalize(startUrl), startUrl);
+            // Очередь обхода одна для обоих режимов, они различаются только пулом загрузок
+            ExecutorService pool = crawlerSettings.getMode() == CrawlMode.FORK_JOIN
+                    ? new ForkJoinPool() : Executors.newVirtualThreadPerTaskExecutor();
+            SiteCrawler crawler = new SiteCrawler(normalizedStartUrl, pageProcessor, this, pool, crawlerSettings,
+                    globalCrawlPermits, visitedUrls);
+            if (checkpoint != null) {
+                visitedUrls.restore(checkpoint.visited());
+                crawler.resumeFrom(checkpoint.frontier());
+            } else {
+                crawler.seedFrom(seeds -> siteDiscovery.readSitemaps(site, robots, seeds));
+            }
+            if (crawlCheckpoints.isEnabled()) {
+                int siteId = site.getId();
+                crawler.checkpointEvery(crawlerSettings.getCheckpoint().getInterval(), snapshot -> {
+                    // Ссылок, страницы которых ещё в очереди записи, в снимке уже нет — дожидаемся записи
+                    if (!pageWriter.awaitWritten(CHECKPOINT_WRITE_TIMEOUT_MS)) {
+                        throw new IOException("страницы из очереди записи не записаны");
+                    }
+                    crawlCheckpoints.save(siteId, startUrl, withFailedPages(snapshot, pageWriter.failedUrls()));
+                });
+            }
+            metrics.gauge("crawler.frontier.size", "Ссылок в очереди обхода", crawler::frontierSize);
+            metrics.gauge("crawler.in.flight", "Выполняющихся загрузок", crawler::inFlight);
+            activeCrawlers.add(crawler);
+            try {
+                crawler.crawl();
+            } finally {
+                activeCrawlers.remove(crawler);
+            }
+            if (indexingInProgress) {
+                crawlCheckpoints.delete(startUrl);
+            }
+        }
+    }
+
+    // Страницы, которые не удалось записать, загружаются заново при продолжении обхода.
+    // Их глубина неизвестна, поэтому они возвращаются в очередь как адреса из sitemap.xml
+    private static SiteCrawler.Snapshot withFailedPages(SiteCrawler.Snapshot snapshot, List<String> failedUrls) {
+        if (failedUrls.isEmpty()) {
+            return snapshot;
+        }
+        List<CrawlFrontier.Entry> frontier = new ArrayList<>(snapshot.frontier());
+        failedUrls.forEach(url -> frontier.add(CrawlFrontier.Entry.seed(url, 1)));
+        return new SiteCrawler.Snapshot(frontier, snapshot.visited());
+    }
+
+    // Страницу сайта, который ещё не индексировался, можно добавить отдельно — строка site создаётся для неё
+    private searchengine.model.Site findOrCreateSite(searchengine.config.Site configSite) {
+        searchengine.model.Site site = siteRepository.findByUrl(configSite.getUrl());
+        if (site == null) {
+            site = new searchengine.model.Site();
+            site.setName(configSite.getName());
+            site.setUrl(configSite.getUrl());
+            site.setStatus(IndexingStatus.INDEXED);
+            site.setStatusTime(LocalDateTime.now());
+            siteRepository.save(site);
+            statisticsCounters.startIndexing(site);
         }
+        return site;
     }
 
     private void updateSiteStatusToIndexed(searchengine.model.Site site) {
         site.setStatus(IndexingStatus.INDEXED);
         site.setStatusTime(LocalDateTime.now());
         siteRepository.save(site);
+        statisticsCounters.statusChanged(site);
         logger.info("Сайт {} изменил статус на INDEXED.", site.getUrl());
     }
 
@@ -211,6 +449,7 @@ public class IndexingService {
             site.setLastError(e.getMessage());
             site.setStatusTime(LocalDateTime.now());
             siteRepository.save(site);
+            statisticsCounters.statusChanged(site);
             logger.error("Ошибка при индексации сайта {}: {}", site.getUrl(), e.getMessage());
         }
     }
@@ -218,30 +457,19 @@ public class IndexingService {
     private void updateSitesStatusToFailed(String errorMessage) {
         List<searchengine.model.Site> sites = siteRepository.findAllByStatus(IndexingStatus.INDEXING);
         for (searchengine.model.Site site : sites) {
+            if (SiteGenerations.isGeneration(site.getUrl())) {
+                // Новое поколение отменяет сама задача обхода: живой сайт остаётся в поиске
+                continue;
+            }
             site.setStatus(IndexingStatus.FAILED);
             site.setLastError(errorMessage);
             site.setStatusTime(LocalDateTime.now());
             siteRepository.save(site);
+            statisticsCounters.statusChanged(site);
             logger.info("Сайт {} изменил статус на FAILED: {}", site.getUrl(), errorMessage);
         }
     }
 
-    private void savePageIfUnique(String url, String content, searchengine.model.Site site) {
-        Optional<Page> existingPage = pageRepository.findByPathAndSiteId(url, site.getId());
-        if (existingPage.isEmpty()) {
-            Page page = new Page();
-            page.setPath(url);
-            page.setContent(content);
-            page.setSite(site);
-            Page savedPage = pageRepository.save(page);
-            logger.info("Сохранена уникальная страница: {}", url);
-
-
-        } else {
-            logger.info("Страница {} уже существует. Пропускаем сохранение.", url);
-        }
-    }
-
     public Set<String> getIndexedSites() {
         // Получаем список сайтов из базы данных, которые были проиндексированы
         List<searchengine.model.Site> indexedSites = siteRepository.findAllByStatus(IndexingStatus.INDEXED);
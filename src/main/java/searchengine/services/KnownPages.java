@@ -0,0 +1,44 @@
+package searchengine.services;
+
+import searchengine.repository.PageJdbcRepository;
+
+import java.util.Map;
+
+/**
+ * Страницы сайта, сохранённые прошлым обходом, — для повторного обхода без полной переиндексации.
+ * По ним PageProcessor делает условные запросы и узнаёт неизменившиеся страницы по хешу тела.
+ */
+public class KnownPages {
+    private static final KnownPages NONE = new KnownPages(Map.of(), null);
+
+    private final Map<String, PageJdbcRepository.PageState> states;
+    private final PageJdbcRepository pageJdbcRepository;
+
+    private KnownPages(Map<String, PageJdbcRepository.PageState> states, PageJdbcRepository pageJdbcRepository) {
+        this.states = states;
+        this.pageJdbcRepository = pageJdbcRepository;
+    }
+
+    // Полный обход: сайт индексируется с пустых таблиц
+    public static KnownPages none() {
+        return NONE;
+    }
+
+    public static KnownPages load(int siteId, PageJdbcRepository pageJdbcRepository) {
+        return new KnownPages(pageJdbcRepository.findStates(siteId), pageJdbcRepository);
+    }
+
+    // Состояние страницы с прошлого обхода или null, если путь встречается впервые
+    public PageJdbcRepository.PageState get(String path) {
+        return states.get(path);
+    }
+
+    public int size() {
+        return states.size();
+    }
+
+    // Сохранённый HTML: ответ 304 приходит без тела, а ссылки страницы всё равно нужны обходу
+    public String storedContent(PageJdbcRepository.PageState state) {
+        return pageJdbcRepository == null ? null : pageJdbcRepository.findContent(state.id());
+    }
+}
@@ -0,0 +1,99 @@
+package searchengine.services;
+
+import org.springframework.stereotype.Service;
+import searchengine.config.LemmaSettings;
+import searchengine.utils.MorphologyProvider;
+import searchengine.utils.TokenCounter;
+import searchengine.utils.Tokenizer;
+import searchengine.utils.WordAnalyzer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Лемматизация текста страниц для индекса.
+ * Словари загружаются один раз на процесс (MorphologyProvider), разбор слов кешируется;
+ * каждое слово отправляется в русскую или английскую морфологию по алфавиту,
+ * служебные части речи отбрасываются.
+ */
+@Service
+public class LemmaService {
+
+    // Для сниппета хватает первых вхождений леммы: дальние в окно всё равно не попадут
+    public static final int MAX_POSITIONS_PER_LEMMA = 32;
+
+    private final WordAnalyzer wordAnalyzer;
+
+    public LemmaService(LemmaSettings settings) {
+        // Словари общие для всего процесса, здесь только прогреваем их до начала обхода
+        MorphologyProvider.russian();
+        MorphologyProvider.english();
+        this.wordAnalyzer = new WordAnalyzer(settings.getCacheSize());
+    }
+
+    // Возвращает леммы текста и число их вхождений
+    public Map<String, Integer> collectLemmas(String text) {
+        // Сначала считаем слова без создания строк, затем разбираем каждое уникальное слово один раз
+        TokenCounter words = new TokenCounter();
+        new Tokenizer().tokenize(text, (chars, length, hash, cyrillic, start, end) -> words.add(chars, length, hash));
+        Map<String, Integer> lemmaCount = new HashMap<>();
+        words.forEach((word, count) -> {
+            String lemma = lemmaOf(word);
+            if (lemma != null) {
+                lemmaCount.merge(lemma, count, Integer::sum);
+            }
+        });
+        return lemmaCount;
+    }
+
+    // Леммы текста страницы с числом вхождений и смещениями первых вхождений в тексте
+    public PageLemmas collectLemmasWithPositions(String text) {
+        TokenCounter words = new TokenCounter(MAX_POSITIONS_PER_LEMMA);
+        new Tokenizer().tokenize(text, (chars, length, hash, cyrillic, start, end) -> words.add(chars, length, hash, start));
+        Map<String, Integer> lemmaCount = new HashMap<>();
+        Map<String, int[]> lemmaPositions = new HashMap<>();
+        words.forEach((word, count, positions) -> {
+            String lemma = lemmaOf(word);
+            if (lemma != null) {
+                lemmaCount.merge(lemma, count, Integer::sum);
+                // Разные словоформы одной леммы — позиции сливаются в один возрастающий список
+                lemmaPositions.merge(lemma, positions, LemmaService::mergePositions);
+            }
+        });
+        return new PageLemmas(lemmaCount, lemmaPositions);
+    }
+
+    // Нормальная форма слова в нижнем регистре или null для служебных и неизвестных слов
+    // Разбор слов с общим кешем — для лемматизаторов вне сервиса
+    public WordAnalyzer getWordAnalyzer() {
+        return wordAnalyzer;
+    }
+
+    public String lemmaOf(String word) {
+        return wordAnalyzer.lemmaOf(word);
+    }
+
+    // Доля слов, разобранных без обращения к словарю
+    public double cacheHitRatio() {
+        long hits = wordAnalyzer.cache().hits();
+        long total = hits + wordAnalyzer.cache().misses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private static int[] mergePositions(int[] left, int[] right) {
+        int[] merged = new int[Math.min(MAX_POSITIONS_PER_LEMMA, left.length + right.length)];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < merged.length; k++) {
+            merged[k] = j == right.length || (i < left.length && left[i] < right[j]) ? left[i++] : right[j++];
+        }
+        return merged;
+    }
+
+    /**
+     * Леммы страницы: counts — число вхождений (для rank),
+     * positions — смещения первых вхождений в тексте страницы (для сниппета).
+     */
+    public record PageLemmas(Map<String, Integer> counts, Map<String, int[]> positions) {
+    }
+}
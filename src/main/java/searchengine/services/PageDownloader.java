@@ -0,0 +1,289 @@
+package searchengine.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import searchengine.config.CrawlerSettings;
+import searchengine.utils.HtmlScanner;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Потоковая загрузка страниц через общий HttpClient.
+ * Решение, читать ли тело, принимается по заголовкам: у неподходящих типов тело не загружается.
+ * HTML читается кусками и сразу разбирается HtmlScanner-ом; размер тела ограничен настройкой,
+ * а чтение, не уложившееся в таймаут, прерывается закрытием потока ответа.
+ */
+@Component
+public class PageDownloader {
+    private static final Logger logger = LoggerFactory.getLogger(PageDownloader.class);
+    private static final int BUFFER_SIZE = 8192;
+    // Если charset нет в заголовке, он ищется в <meta> в начале документа
+    private static final int CHARSET_SNIFF_BYTES = 1024;
+
+    private final CrawlerSettings settings;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService deadlines = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("page-download-deadline").daemon(true).factory());
+
+    public PageDownloader(CrawlerSettings settings) {
+        this.settings = settings;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(settings.getFetch().getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    public Download download(String url, Map<String, String> headers) throws IOException, InterruptedException {
+        CrawlerSettings.Fetch fetch = settings.getFetch();
+        long sent = System.nanoTime();
+        HttpResponse<InputStream> response = send(url, headers);
+        // Закрытие непрочитанного потока отменяет загрузку тела
+        try (InputStream body = response.body()) {
+            int statusCode = response.statusCode();
+            if (statusCode >= 400) {
+                throw new HttpStatusException(statusCode, url);
+            }
+            String contentType = response.headers().firstValue("Content-Type").orElse(null);
+            String etag = response.headers().firstValue("ETag").orElse(null);
+            String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+            if (statusCode != 200 || !isAccepted(contentType)) {
+                return new Download(statusCode, contentType, etag, lastModified, response.uri(), null);
+            }
+
+            ScheduledFuture<?> deadline = bodyDeadline(body, sent, url);
+            try {
+                Html html = readHtml(body, charsetOf(contentType), fetch.maxBodySizeBytes(), url);
+                return new Download(statusCode, contentType, etag, lastModified, response.uri(), html);
+            } catch (IOException e) {
+                // Поток закрыт по таймауту: задача могла ещё не завершиться, поэтому проверяем время
+                if (deadline.getDelay(TimeUnit.NANOSECONDS) <= 0) {
+                    throw new HttpTimeoutException("Страница не загрузилась за " + fetch.getTimeout().toSeconds() + " с");
+                }
+                throw e;
+            } finally {
+                deadline.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Служебный файл сайта (robots.txt, sitemap.xml): тело не длиннее maxBytes отдаётся reader-у потоком.
+     * Таймаут тот же, что у страниц; ответ с ошибкой — HttpStatusException.
+     */
+    public <T> T read(String url, int maxBytes, BodyReader<T> reader) throws IOException, InterruptedException {
+        CrawlerSettings.Fetch fetch = settings.getFetch();
+        long sent = System.nanoTime();
+        HttpResponse<InputStream> response = send(url, Map.of());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() >= 400) {
+                throw new HttpStatusException(response.statusCode(), url);
+            }
+            ScheduledFuture<?> deadline = bodyDeadline(body, sent, url);
+            try {
+                return reader.read(new LimitedInputStream(body, maxBytes),
+                        response.headers().firstValue("Content-Type").orElse(null));
+            } catch (IOException e) {
+                if (deadline.getDelay(TimeUnit.NANOSECONDS) <= 0) {
+                    throw new HttpTimeoutException(url + " не загрузился за " + fetch.getTimeout().toSeconds() + " с");
+                }
+                throw e;
+            } finally {
+                deadline.cancel(false);
+            }
+        }
+    }
+
+    // Таймаут один на весь ответ: тело читается столько, сколько осталось после получения заголовков
+    private ScheduledFuture<?> bodyDeadline(InputStream body, long sent, String url) throws HttpTimeoutException {
+        Duration timeout = settings.getFetch().getTimeout();
+        long remaining = timeout.toNanos() - (System.nanoTime() - sent);
+        if (remaining <= 0) {
+            throw new HttpTimeoutException(url + " не загрузился за " + timeout.toSeconds() + " с");
+        }
+        return deadlines.schedule(() -> closeQuietly(body), remaining, TimeUnit.NANOSECONDS);
+    }
+
+    private HttpResponse<InputStream> send(String url, Map<String, String> headers)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(settings.getFetch().getTimeout())
+                    .header("User-Agent", settings.getUserAgent())
+                    .header("Referer", settings.getReferrer())
+                    .GET();
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Некорректный URL: " + url, e);
+        }
+        headers.forEach(request::header);
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private Html readHtml(InputStream body, Charset declared, int maxBytes, String url) throws IOException {
+        LimitedInputStream limited = new LimitedInputStream(body, maxBytes);
+        byte[] head = limited.readNBytes(CHARSET_SNIFF_BYTES);
+        Charset charset = declared != null ? declared : sniffCharset(head);
+
+        HtmlScanner scanner = new HtmlScanner();
+        StringBuilder content = new StringBuilder();
+        char[] buffer = new char[BUFFER_SIZE];
+        try (Reader reader = new InputStreamReader(
+                new SequenceInputStream(new ByteArrayInputStream(head), limited), charset)) {
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                scanner.feed(buffer, 0, read);
+                content.append(buffer, 0, read);
+            }
+        }
+        if (limited.truncated) {
+            logger.debug("Ответ {} длиннее {} КБ и обрезан", url, maxBytes / 1024);
+        }
+        return new Html(content.toString(), scanner.text(), scanner.title(), scanner.links());
+    }
+
+    private boolean isAccepted(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String mimeType = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+        return settings.getFetch().getContentTypes().contains(mimeType);
+    }
+
+    private static Charset charsetOf(String contentType) {
+        return contentType == null ? null : charsetAfter(contentType.toLowerCase(Locale.ROOT));
+    }
+
+    // <meta charset="..."> или <meta http-equiv="Content-Type" content="...; charset=...">
+    private static Charset sniffCharset(byte[] head) {
+        String ascii = new String(head, StandardCharsets.ISO_8859_1).toLowerCase(Locale.ROOT);
+        int meta = ascii.indexOf("<meta");
+        while (meta >= 0) {
+            int end = ascii.indexOf('>', meta);
+            Charset charset = charsetAfter(end < 0 ? ascii.substring(meta) : ascii.substring(meta, end));
+            if (charset != null) {
+                return charset;
+            }
+            meta = ascii.indexOf("<meta", meta + 1);
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private static Charset charsetAfter(String value) {
+        int start = value.indexOf("charset=");
+        if (start < 0) {
+            return null;
+        }
+        start += "charset=".length();
+        while (start < value.length() && (value.charAt(start) == '"' || value.charAt(start) == '\'')) {
+            start++;
+        }
+        int end = start;
+        while (end < value.length() && (Character.isLetterOrDigit(value.charAt(end))
+                || value.charAt(end) == '-' || value.charAt(end) == '_')) {
+            end++;
+        }
+        try {
+            return end > start ? Charset.forName(value.substring(start, end)) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException ignored) {
+            // Поток закрывается по таймауту, ошибка закрытия ничего не меняет
+        }
+    }
+
+    /**
+     * Ответ сервера. html — разобранное тело, если это страница нужного типа с кодом 200,
+     * иначе null: тело таких ответов не загружалось.
+     */
+    public record Download(int statusCode, String contentType, String etag, String lastModified, URI uri,
+                           Html html) {
+    }
+
+    // Сервер ответил ошибкой (код 4xx или 5xx)
+    public static class HttpStatusException extends IOException {
+        private final int statusCode;
+
+        public HttpStatusException(int statusCode, String url) {
+            super("HTTP error fetching URL. Status=" + statusCode + ", URL=" + url);
+            this.statusCode = statusCode;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+    }
+
+    @FunctionalInterface
+    public interface BodyReader<T> {
+        T read(InputStream body, String contentType) throws IOException;
+    }
+
+    // content — исходный HTML (не длиннее ограничения), links — href в исходном виде
+    public record Html(String content, String text, String title, List<String> links) {
+    }
+
+    // Отдаёт не больше limit байт, остальное тело не читается
+    private static final class LimitedInputStream extends FilterInputStream {
+        private int remaining;
+        private boolean truncated;
+
+        LimitedInputStream(InputStream in, int limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                truncated = true;
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                truncated = true;
+                return -1;
+            }
+            int read = super.read(b, off, Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+}
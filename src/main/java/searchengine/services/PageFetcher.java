@@ -0,0 +1,211 @@
+package searchengine.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import searchengine.model.ContentStorage;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import searchengine.repository.PageJdbcRepository;
+import searchengine.utils.HtmlScanner;
+import searchengine.utils.UrlHash;
+import searchengine.utils.UrlNormalizer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Загрузка одной страницы сайта: запрос в рамках бюджета хоста, потоковый разбор и лемматизация.
+ * Ничего не сохраняет — страницу пишет вызывающий: обход через PageWriter,
+ * переиндексация отдельной страницы — сразу в своей транзакции.
+ */
+public class PageFetcher {
+    private static final Logger logger = LoggerFactory.getLogger(PageFetcher.class);
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private final Site site;
+    private final PageDownloader pageDownloader;
+    private final CrawlScheduler scheduler;
+    private final LemmaService lemmaService;
+    private final KnownPages knownPages;
+    private final ContentStorage contentStorage;
+    private final CrawlMetrics.SiteMetrics metrics;
+
+    public PageFetcher(Site site, PageDownloader pageDownloader, CrawlScheduler scheduler, LemmaService lemmaService,
+                       KnownPages knownPages, ContentStorage contentStorage, CrawlMetrics.SiteMetrics metrics) {
+        this.site = site;
+        this.pageDownloader = pageDownloader;
+        this.scheduler = scheduler;
+        this.lemmaService = lemmaService;
+        this.knownPages = knownPages;
+        this.contentStorage = contentStorage;
+        this.metrics = metrics;
+    }
+
+    public FetchedPage fetch(String url) throws IOException, InterruptedException {
+        String path;
+        try {
+            path = UrlNormalizer.pathOf(url);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Некорректный URL: " + url, e);
+        }
+        PageJdbcRepository.PageState known = knownPages.get(path);
+        Map<String, String> headers = new HashMap<>();
+        if (known != null) {
+            // Условный запрос: неизменившуюся страницу сервер вернёт кодом 304 без тела
+            if (known.etag() != null) {
+                headers.put("If-None-Match", known.etag());
+            }
+            if (known.lastModified() != null) {
+                headers.put("If-Modified-Since", known.lastModified());
+            }
+        }
+
+        PageDownloader.Download download;
+        // Ждём бюджет хоста: частоту и число соединений ограничивает планировщик
+        try (CrawlScheduler.Permit permit = scheduler.acquire(site)) {
+            logger.debug("Обработка URL: {}", url);
+            long started = System.nanoTime();
+            try {
+                download = pageDownloader.download(url, headers);
+            } catch (PageDownloader.HttpStatusException e) {
+                metrics.fetched(e.getStatusCode(), System.nanoTime() - started);
+                throw e;
+            } catch (IOException e) {
+                metrics.fetchFailed(System.nanoTime() - started);
+                throw e;
+            }
+            metrics.fetched(download.statusCode(), System.nanoTime() - started);
+        }
+
+        if (known != null && download.statusCode() == HTTP_NOT_MODIFIED) {
+            logger.debug("Страница не изменилась (304): {}", url);
+            return FetchedPage.unchanged(storedLinks(url, known));
+        }
+        return handleDownload(url, path, download, known);
+    }
+
+    private FetchedPage handleDownload(String url, String path, PageDownloader.Download download,
+                                       PageJdbcRepository.PageState known) {
+        String contentType = download.contentType();
+        PageDownloader.Html html = download.html();
+
+        String content;
+        List<String> links = List.of();
+        if (html != null) {
+            // Сохраняется исходный HTML как есть, без повторной сериализации дерева документа
+            content = html.content();
+            links = resolve(html.links(), download.uri());
+        } else if (contentType != null && contentType.startsWith("image/")) {
+            content = "Image content: " + contentType;
+        } else {
+            content = "Unhandled content type: " + contentType;
+        }
+
+        long contentHash = UrlHash.hash(content);
+        if (known != null && known.contentHash() != null && known.contentHash() == contentHash) {
+            // Тело то же, что при прошлом обходе: ни записи, ни лемматизации — только ссылки для обхода
+            logger.debug("Содержимое страницы не изменилось: {}", url);
+            return FetchedPage.unchanged(links);
+        }
+
+        // Уникальность гарантирует множество посещённых URL, а повтор в базе отсекает uk_page_site_path
+        Page page = new Page();
+        page.setSite(site);
+        page.setPath(path);
+        page.setCode(download.statusCode());
+        page.setContentType(contentType);
+        if (html != null) {
+            // Хеш выше считается по исходному HTML, так что смена режима хранения не меняет его
+            page.storeContent(content, contentStorage, html.title(), html.text());
+        } else {
+            page.storeContent(content, ContentStorage.HTML, null, null);
+        }
+        page.setEtag(download.etag());
+        page.setLastModified(download.lastModified());
+        page.setContentHash(contentHash);
+        if (known != null) {
+            // Изменившаяся страница перезаписывается на месте, PageIndexer заменит её леммы
+            page.setId(known.id());
+        }
+
+        LemmaService.PageLemmas lemmas = new LemmaService.PageLemmas(Map.of(), Map.of());
+        if (html != null) {
+            logger.debug("HTML-страница добавлена: {}", url);
+            // Лемматизация идёт здесь, в потоке обхода, чтобы поток записи занимался только базой
+            // Позиции считаются по тому же тексту, что сохраняется в text_compressed, — по ним строится сниппет
+            long started = System.nanoTime();
+            lemmas = lemmaService.collectLemmasWithPositions(html.text());
+            metrics.lemmatized(System.nanoTime() - started);
+        } else if (contentType != null && contentType.startsWith("image/")) {
+            logger.debug("Изображение добавлено: {}", url);
+        } else {
+            logger.debug("Контент с неизвестным типом добавлен: {}", url);
+        }
+        return new FetchedPage(new CrawledPage(page, lemmas), links);
+    }
+
+    /**
+     * Страница, загрузка которой не удалась, или null, если у адреса нет пути. Страница, известная
+     * с прошлого обхода, перезаписывается на месте с кодом ошибки, а PageIndexer убирает её строки index
+     * и вклад в frequency — иначе удалённая с сайта страница оставалась бы в поиске.
+     */
+    public CrawledPage failedPage(String url, IOException error) {
+        String path;
+        try {
+            path = UrlNormalizer.pathOf(url);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        Page page = new Page();
+        page.setSite(site);
+        page.setPath(path);
+        page.setCode(error instanceof PageDownloader.HttpStatusException status ? status.getStatusCode() : 0);
+        page.storeContent("Ошибка обработки: " + error.getMessage(), ContentStorage.HTML, null, null);
+        PageJdbcRepository.PageState known = knownPages.get(path);
+        if (known != null) {
+            page.setId(known.id());
+        }
+        return CrawledPage.withoutLemmas(page);
+    }
+
+    // Ответ 304 приходит без тела — ссылки берутся из HTML, сохранённого прошлым обходом
+    private List<String> storedLinks(String url, PageJdbcRepository.PageState known) {
+        String content = knownPages.storedContent(known);
+        if (content == null) {
+            return List.of();
+        }
+        HtmlScanner scanner = new HtmlScanner();
+        scanner.feed(content);
+        return resolve(scanner.links(), URI.create(url));
+    }
+
+    private static List<String> resolve(List<String> hrefs, URI base) {
+        List<String> links = new ArrayList<>(hrefs.size());
+        for (String href : hrefs) {
+            String link = UrlNormalizer.resolve(base, href);
+            if (link != null) {
+                links.add(link);
+            }
+        }
+        return links;
+    }
+
+    /**
+     * Результат загрузки: crawledPage — страница для записи (null, если она не изменилась
+     * с прошлого обхода), links — абсолютные адреса ссылок страницы.
+     */
+    public record FetchedPage(CrawledPage crawledPage, List<String> links) {
+
+        static FetchedPage unchanged(List<String> links) {
+            return new FetchedPage(null, links);
+        }
+
+        public boolean changed() {
+            return crawledPage != null;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package searchengine.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import searchengine.model.Site;
+import searchengine.repository.IndexJdbcRepository;
+import searchengine.repository.LemmaJdbcRepository;
+import searchengine.repository.PageJdbcRepository;
+import searchengine.utils.PositionCodec;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Заполнение таблиц lemma и index для пачки только что записанных страниц сайта.
+ * Вызывается из потока PageWriter, поэтому внутреннее состояние не синхронизируется.
+ * Частоты лемм сначала суммируются по всей пачке, и каждая строка lemma
+ * обновляется один раз на пачку одним пакетным upsert-ом.
+ * При повторном обходе изменившаяся страница сначала вычитается из frequency своих старых лемм,
+ * её строки index заменяются, а леммы, оставшиеся без страниц, удаляются — всё в одной транзакции.
+ * Кеш идентификаторов лемм, отметки страниц и счётчики меняются только после её фиксации.
+ */
+public class PageIndexer {
+    private static final Logger logger = LoggerFactory.getLogger(PageIndexer.class);
+
+    private final Site site;
+    private final PageJdbcRepository pageJdbcRepository;
+    private final LemmaJdbcRepository lemmaJdbcRepository;
+    private final IndexJdbcRepository indexJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StatisticsCounters.SiteCounters counters;
+
+    // Идентификаторы уже известных лемм сайта: повторно их в базе не ищем
+    private final Map<String, Integer> lemmaIds = new HashMap<>();
+    // Страницы, леммы которых уже учтены (защита от двойного подсчёта частоты)
+    private final BitSet indexedPages = new BitSet();
+    // На сколько изменилось число страниц сайта, у которых есть леммы
+    private int indexedPageDelta;
+
+    public PageIndexer(Site site, PageJdbcRepository pageJdbcRepository, LemmaJdbcRepository lemmaJdbcRepository,
+                       IndexJdbcRepository indexJdbcRepository, TransactionTemplate transactionTemplate,
+                       StatisticsCounters.SiteCounters counters) {
+        this.site = site;
+        this.pageJdbcRepository = pageJdbcRepository;
+        this.lemmaJdbcRepository = lemmaJdbcRepository;
+        this.indexJdbcRepository = indexJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.counters = counters;
+    }
+
+    // Повторный обход: леммы сайта уже есть в базе, их идентификаторы загружаются заранее
+    public void preloadLemmaIds() {
+        lemmaJdbcRepository.findAllBySiteId(site.getId()).forEach((id, lemma) -> lemmaIds.put(lemma, id));
+    }
+
+    // Переиндексация отдельных страниц: достаточно идентификаторов их лемм, а не всех лемм сайта
+    public void preloadLemmaIds(Collection<String> lemmas) {
+        lemmaIds.putAll(lemmaJdbcRepository.findIds(site.getId(), lemmas));
+    }
+
+    public void index(List<CrawledPage> batch) {
+        // Изменившейся странице индекс нужно обновить, даже если лемм на ней больше нет
+        List<CrawledPage> candidates = batch.stream()
+                .filter(crawledPage -> !crawledPage.lemmas().isEmpty() || crawledPage.page().getId() != null)
+                .toList();
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        List<String> newPaths = candidates.stream()
+                .filter(crawledPage -> crawledPage.page().getId() == null)
+                .map(crawledPage -> crawledPage.page().getPath())
+                .toList();
+        Map<String, Integer> pageIds = newPaths.isEmpty() ? Map.of() : pageJdbcRepository.findIds(site.getId(), newPaths);
+
+        List<CrawledPage> toIndex = new ArrayList<>(candidates.size());
+        BitSet batchPages = new BitSet();
+        List<Integer> replacedPages = new ArrayList<>();
+        Set<String> pageLemmas = new HashSet<>();
+        SortedMap<String, Integer> frequencyIncrements = new TreeMap<>();
+        for (CrawledPage crawledPage : candidates) {
+            boolean replaced = crawledPage.page().getId() != null;
+            Integer pageId = replaced ? crawledPage.page().getId() : pageIds.get(crawledPage.page().getPath());
+            if (pageId == null || indexedPages.get(pageId) || batchPages.get(pageId)) {
+                continue;
+            }
+            batchPages.set(pageId);
+            crawledPage.page().setId(pageId);
+            toIndex.add(crawledPage);
+            if (replaced) {
+                replacedPages.add(pageId);
+            }
+            // frequency — число страниц сайта, на которых встречается лемма
+            crawledPage.lemmas().keySet().forEach(lemma -> frequencyIncrements.merge(lemma, 1, Integer::sum));
+            pageLemmas.addAll(crawledPage.lemmas().keySet());
+        }
+        if (toIndex.isEmpty()) {
+            return;
+        }
+
+        int pagesWithLemmas = (int) toIndex.stream().filter(crawledPage -> !crawledPage.lemmas().isEmpty()).count();
+        BatchResult result;
+        try {
+            result = transactionTemplate.execute(status -> write(toIndex, replacedPages, pageLemmas, frequencyIncrements));
+        } catch (RuntimeException e) {
+            // Откат мог удалить строки lemma, уже попавшие в кеш при прошлых пачках (deleteUnused),
+            // поэтому кеш перечитывается из базы
+            lemmaIds.clear();
+            preloadLemmaIds();
+            throw e;
+        }
+        Runnable apply = () -> {
+            indexedPages.or(batchPages);
+            lemmaIds.putAll(result.created());
+            result.removed().forEach(lemmaIds::remove);
+            counters.lemmasAdded(result.created().size() - result.removed().size());
+            indexedPageDelta += pagesWithLemmas - result.replacedWithLemmas();
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Пачка записана во внешней транзакции (переиндексация страницы) — применяем после её фиксации
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+        logger.debug("Проиндексировано страниц: {} (из них изменившихся {}), лемм в пачке: {}",
+                toIndex.size(), replacedPages.size(), frequencyIncrements.size());
+    }
+
+    // Выполняется в транзакции; состояние индексатора не меняет
+    private BatchResult write(List<CrawledPage> toIndex, List<Integer> replacedPages, Set<String> pageLemmas,
+                              SortedMap<String, Integer> frequencyIncrements) {
+        Map<Integer, List<String>> oldLemmas = Map.of();
+        if (!replacedPages.isEmpty()) {
+            oldLemmas = indexJdbcRepository.findLemmasByPageIds(replacedPages);
+            oldLemmas.values().forEach(lemmas ->
+                    lemmas.forEach(lemma -> frequencyIncrements.merge(lemma, -1, Integer::sum)));
+            indexJdbcRepository.deleteByPageIds(replacedPages);
+        }
+        // Лемма осталась на изменившейся странице — её frequency не меняется
+        frequencyIncrements.values().removeIf(increment -> increment == 0);
+        lemmaJdbcRepository.incrementFrequencies(site.getId(), frequencyIncrements);
+        Map<String, Integer> created = resolveLemmaIds(pageLemmas);
+        indexJdbcRepository.insertAll(buildIndexRows(toIndex, created));
+        return new BatchResult(created, removeUnusedLemmas(frequencyIncrements), oldLemmas.size());
+    }
+
+    // Отсортированные страницы, чьи строки index записаны или заменены этим индексатором
+    public int[] indexedPages() {
+        return indexedPages.stream().toArray();
+    }
+
+    public int getIndexedPageDelta() {
+        return indexedPageDelta;
+    }
+
+    // Леммы, удалённые из-за нулевой frequency
+    private List<String> removeUnusedLemmas(Map<String, Integer> frequencyIncrements) {
+        List<String> decreased = frequencyIncrements.entrySet().stream()
+                .filter(entry -> entry.getValue() < 0)
+                .map(Map.Entry::getKey)
+                .toList();
+        if (decreased.isEmpty()) {
+            return List.of();
+        }
+        return lemmaJdbcRepository.deleteUnused(site.getId(), decreased);
+    }
+
+    // Идентификаторы лемм, которых нет в кеше, — строки lemma, созданные этой пачкой
+    private Map<String, Integer> resolveLemmaIds(Iterable<String> lemmas) {
+        List<String> unknown = new ArrayList<>();
+        for (String lemma : lemmas) {
+            if (!lemmaIds.containsKey(lemma)) {
+                unknown.add(lemma);
+            }
+        }
+        // Известные леммы сайта уже в кеше (полный обход начинается с пустых таблиц),
+        // поэтому впервые встреченная лемма — новая строка lemma
+        return unknown.isEmpty() ? Map.of() : lemmaJdbcRepository.findIds(site.getId(), unknown);
+    }
+
+    private List<IndexJdbcRepository.Row> buildIndexRows(List<CrawledPage> pages, Map<String, Integer> created) {
+        List<IndexJdbcRepository.Row> rows = new ArrayList<>();
+        for (CrawledPage crawledPage : pages) {
+            int pageId = crawledPage.page().getId();
+            for (Map.Entry<String, Integer> entry : crawledPage.lemmas().entrySet()) {
+                Integer lemmaId = lemmaIds.getOrDefault(entry.getKey(), created.get(entry.getKey()));
+                if (lemmaId == null) {
+                    logger.warn("Не найден идентификатор леммы '{}' сайта {}", entry.getKey(), site.getUrl());
+                    continue;
+                }
+                int[] positions = crawledPage.positions().get(entry.getKey());
+                rows.add(new IndexJdbcRepository.Row(pageId, lemmaId, entry.getValue(),
+                        positions == null ? null : PositionCodec.encode(positions)));
+            }
+        }
+        return rows;
+    }
+
+    // created — новые строки lemma, removed — удалённые, replacedWithLemmas — заменённых страниц с леммами
+    private record BatchResult(Map<String, Integer> created, List<String> removed, int replacedWithLemmas) {
+    }
+}
@@ -0,0 +1,140 @@
+package searchengine.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import searchengine.utils.RobotsTxt;
+import searchengine.utils.UrlNormalizer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Загрузка (через PageFetcher) и сохранение одной страницы сайта.
+ * Общая часть для всех режимов обхода: движок обхода решает,
+ * какие из возвращённых ссылок нужно загружать дальше.
+ */
+public class PageProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(PageProcessor.class);
+    private final Site site;
+    private final PageWriter pageWriter;
+    private final PageFetcher pageFetcher;
+    private final RobotsTxt robots;
+
+    public PageProcessor(Site site, PageWriter pageWriter, PageFetcher pageFetcher, RobotsTxt robots) {
+        this.site = site;
+        this.pageWriter = pageWriter;
+        this.pageFetcher = pageFetcher;
+        this.robots = robots;
+    }
+
+    // Загружает страницу, сохраняет её и возвращает нормализованные ссылки на страницы того же сайта
+    public List<String> process(String url) {
+        // Стартовая страница и ссылки из контрольной точки не проходили проверку robots.txt
+        if (!robots.isAllowedUrl(url)) {
+            logger.debug("URL {} запрещён robots.txt. Пропускаем.", url);
+            return List.of();
+        }
+        try {
+            return fetchAndStore(url);
+        } catch (InterruptedException e) {
+            logger.debug("Ожидание бюджета хоста или очереди записи прервано для URL: {}", url);
+            Thread.currentThread().interrupt();
+            return List.of();
+        }
+    }
+
+    private List<String> fetchAndStore(String url) throws InterruptedException {
+        try {
+            PageFetcher.FetchedPage fetched = pageFetcher.fetch(url);
+            if (fetched.changed()) {
+                pageWriter.submit(url, fetched.crawledPage());
+            }
+            return extractLinks(fetched.links());
+        } catch (IOException e) {
+            handleError(url, e);
+            return List.of();
+        }
+    }
+
+    private List<String> extractLinks(List<String> links) throws InterruptedException {
+        List<String> childUrls = new ArrayList<>();
+        for (String childUrl : links) {
+
+            // Проверяем, что ссылка принадлежит корневому сайту
+            if (!childUrl.startsWith(site.getUrl())) {
+                logger.debug("Ссылка {} находится за пределами корневого сайта. Пропускаем.", childUrl);
+                continue;
+            }
+
+            // Обработка JavaScript ссылок
+            if (childUrl.startsWith("javascript:")) {
+                logger.debug("Обнаружена JavaScript ссылка: {}", childUrl);
+                saveJavaScriptLink(childUrl);
+                continue;
+            }
+
+            // Обработка tel: ссылок
+            if (childUrl.startsWith("tel:")) {
+                logger.debug("Обнаружена телефонная ссылка: {}", childUrl);
+                savePhoneLink(childUrl);
+                continue;
+            }
+
+            String normalizedUrl = UrlNormalizer.normalize(childUrl);
+            if (normalizedUrl == null) {
+                logger.debug("Не удалось разобрать ссылку {}. Пропускаем.", childUrl);
+                continue;
+            }
+            // Путь со строкой запроса — ключ страницы в таблице page, длиннее колонки его не записать
+            if (UrlNormalizer.pathOf(normalizedUrl).length() > Page.MAX_PATH_LENGTH) {
+                logger.debug("Адрес {} длиннее {} символов. Пропускаем.", normalizedUrl, Page.MAX_PATH_LENGTH);
+                continue;
+            }
+            if (!robots.isAllowedUrl(normalizedUrl)) {
+                logger.debug("Ссылка {} запрещена robots.txt. Пропускаем.", normalizedUrl);
+                continue;
+            }
+            childUrls.add(normalizedUrl);
+        }
+        return childUrls;
+    }
+
+    private void savePhoneLink(String telUrl) throws InterruptedException {
+        String phoneNumber = telUrl.substring(4); // Убираем "tel:"
+        Page page = new Page();
+        page.setSite(site);
+        page.setPath(phoneNumber);
+        page.setCode(0); // Код 0 для телефонных ссылок
+        page.setContent("Телефонный номер: " + phoneNumber);
+        pageWriter.submit(CrawledPage.withoutLemmas(page)); // Повторно сохранённый номер отсечёт uk_page_site_path
+
+        logger.debug("Сохранён телефонный номер: {}", phoneNumber);
+    }
+
+    private void saveJavaScriptLink(String jsUrl) throws InterruptedException {
+        Page page = new Page();
+        page.setSite(site);
+        page.setPath(jsUrl); // Сохраняем полный jsUrl как path
+        page.setCode(0); // Код 0 для JavaScript ссылок
+        page.setContent("JavaScript ссылка: " + jsUrl);
+        pageWriter.submit(CrawledPage.withoutLemmas(page));
+
+        logger.debug("Сохранена JavaScript ссылка: {}", jsUrl);
+    }
+
+    private void handleError(String url, IOException e) throws InterruptedException {
+        if (Thread.currentThread().isInterrupted()) {
+            // Индексация остановлена, запрос прерван — это не ошибка страницы
+            logger.debug("Запрос к {} прерван остановкой индексации.", url);
+            return;
+        }
+        logger.warn("Ошибка обработки URL {}: {}", url, e.getMessage());
+        CrawledPage failed = pageFetcher.failedPage(url, e);
+        if (failed != null) {
+            pageWriter.submit(url, failed);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package searchengine.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import searchengine.model.Page;
+import searchengine.repository.PageJdbcRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Асинхронная запись страниц одного сайта.
+ * Потоки обхода кладут страницы в ограниченную очередь и не ждут базу данных;
+ * отдельный поток забирает их пачками, пишет одним пакетным INSERT (изменившиеся при повторном
+ * обходе страницы — пакетным UPDATE)
+ * и сразу передаёт пачку в PageIndexer для заполнения lemma и index.
+ * Если база не успевает, очередь заполняется и put() притормаживает обход.
+ * close() дожидается записи всего, что уже попало в очередь.
+ * awaitWritten() дожидается записи уже поставленных страниц без закрытия — для контрольной точки обхода.
+ * Неудачная пачка повторяется, затем делится пополам, чтобы отделить страницу, которую база не принимает;
+ * URL таких страниц возвращает failedUrls(), и контрольная точка оставляет их в очереди обхода.
+ */
+public class PageWriter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(PageWriter.class);
+    private static final long POLL_INTERVAL_MS = 100;
+    private static final int WRITE_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MS = 200;
+
+    private final PageJdbcRepository pageJdbcRepository;
+    private final PageIndexer pageIndexer;
+    private final StatisticsCounters.SiteCounters counters;
+    private final CrawlMetrics.SiteMetrics metrics;
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final Thread writerThread;
+    private volatile boolean closed;
+    // Поставлено в очередь и обработано потоком записи (записано или попало в failedUrls)
+    private final AtomicLong submitted = new AtomicLong();
+    private long written;
+    private final Object writtenMonitor = new Object();
+    // URL страниц, которые не удалось записать: при продолжении обхода они загружаются заново
+    private final ConcurrentLinkedQueue<String> failedUrls = new ConcurrentLinkedQueue<>();
+
+    public PageWriter(String siteUrl, PageJdbcRepository pageJdbcRepository, PageIndexer pageIndexer,
+                      StatisticsCounters.SiteCounters counters, CrawlMetrics.SiteMetrics metrics,
+                      int queueCapacity, int batchSize) {
+        this.pageJdbcRepository = pageJdbcRepository;
+        this.pageIndexer = pageIndexer;
+        this.counters = counters;
+        this.metrics = metrics;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.writerThread = Thread.ofPlatform()
+                .name("page-writer-" + siteUrl)
+                .daemon(true)
+                .start(this::drain);
+    }
+
+    // Ставит страницу в очередь на запись; блокируется, пока в очереди нет места
+    public void submit(CrawledPage page) throws InterruptedException {
+        submit(null, page);
+    }
+
+    // url — адрес, загрузка которого дала страницу: если страница не запишется, он вернётся в failedUrls()
+    public void submit(String url, CrawledPage page) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Запись страниц уже завершена");
+        }
+        queue.put(new Pending(url, page));
+        submitted.incrementAndGet();
+    }
+
+    // Ждёт, пока будет обработано всё, что поставлено в очередь до вызова; false — вышло время.
+    // Незаписанные страницы обработанными считаются, но их URL остаются в failedUrls()
+    public boolean awaitWritten(long timeoutMillis) throws InterruptedException {
+        long target = submitted.get();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (writtenMonitor) {
+            while (written < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0 || !writerThread.isAlive()) {
+                    return false;
+                }
+                writtenMonitor.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    // URL страниц, которые база так и не приняла
+    public List<String> failedUrls() {
+        return List.copyOf(failedUrls);
+    }
+
+    // Страниц в очереди на запись
+    public int queueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            logger.warn("Ожидание записи оставшихся страниц прервано, в очереди {} страниц.", queue.size());
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        boolean interrupted = false;
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeIsolating(batch, WRITE_ATTEMPTS);
+                synchronized (writtenMonitor) {
+                    written += batch.size();
+                    writtenMonitor.notifyAll();
+                }
+            } catch (InterruptedException e) {
+                // Прерывание не теряет данные: дописываем то, что уже в очереди, и выходим
+                interrupted = true;
+                closed = true;
+            } finally {
+                batch.clear();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Повторяет пачку, а если она так и не записалась — пишет её половины по отдельности.
+    // Временные сбои базы переживает первая пачка, половины пишутся по одному разу
+    private void writeIsolating(List<Pending> batch, int attempts) {
+        List<CrawledPage> pages = batch.stream().map(Pending::crawledPage).toList();
+        // PageIndexer проставляет id новым страницам; после отката они снова должны считаться новыми
+        List<Integer> ids = pages.stream().map(crawledPage -> crawledPage.page().getId()).toList();
+        Exception error = null;
+        for (int attempt = 1; attempt <= attempts; attempt++) {
+            try {
+                write(pages);
+                return;
+            } catch (Exception e) {
+                error = e;
+                for (int i = 0; i < pages.size(); i++) {
+                    pages.get(i).page().setId(ids.get(i));
+                }
+                logger.warn("Ошибка записи пачки из {} страниц (попытка {} из {}): {}",
+                        batch.size(), attempt, attempts, e.getMessage());
+                if (attempt < attempts) {
+                    pause(RETRY_DELAY_MS * attempt);
+                }
+            }
+        }
+        if (batch.size() > 1) {
+            int middle = batch.size() / 2;
+            writeIsolating(batch.subList(0, middle), 1);
+            writeIsolating(batch.subList(middle, batch.size()), 1);
+            return;
+        }
+        Pending pending = batch.get(0);
+        logger.error("Страница {} не записана: {}", pending.crawledPage().page().getPath(), error.getMessage());
+        if (pending.url() != null) {
+            failedUrls.add(pending.url());
+        }
+    }
+
+    // Пачку можно повторять целиком: INSERT IGNORE не вставит страницу второй раз,
+    // а PageIndexer учитывает страницы только после фиксации своей транзакции
+    private void write(List<CrawledPage> batch) {
+        // Страницы с идентификатором известны по прошлому обходу и изменились — их перезаписываем
+        List<Page> inserts = new ArrayList<>(batch.size());
+        List<Page> updates = new ArrayList<>();
+        for (CrawledPage crawledPage : batch) {
+            (crawledPage.page().getId() == null ? inserts : updates).add(crawledPage.page());
+        }
+        long started = System.nanoTime();
+        if (!inserts.isEmpty()) {
+            int inserted = pageJdbcRepository.insertAll(inserts);
+            counters.pagesAdded(inserted);
+            logger.debug("Записано страниц: {}", inserted);
+        }
+        if (!updates.isEmpty()) {
+            pageJdbcRepository.updateAll(updates);
+            logger.debug("Обновлено страниц: {}", updates.size());
+        }
+        metrics.batchWritten(batch.size(), System.nanoTime() - started);
+        started = System.nanoTime();
+        pageIndexer.index(batch);
+        metrics.batchIndexed(System.nanoTime() - started);
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            // Остановка: оставшиеся попытки идут без пауз, прерывание обработает цикл drain()
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Pending(String url, CrawledPage crawledPage) {
+    }
+}
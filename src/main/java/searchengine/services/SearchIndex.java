@@ -0,0 +1,293 @@
+package searchengine.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import searchengine.config.SearchSettings;
+import searchengine.index.PostingList;
+import searchengine.index.Segment;
+import searchengine.index.SegmentSet;
+import searchengine.index.SegmentStore;
+import searchengine.index.SiteIndex;
+import searchengine.index.SiteIndexBuilder;
+import searchengine.model.IndexingStatus;
+import searchengine.model.Site;
+import searchengine.repository.IndexJdbcRepository;
+import searchengine.repository.LemmaJdbcRepository;
+import searchengine.repository.SiteRepository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Инвертированные индексы сайтов. Индекс сайта хранится в неизменяемых файлах сегментов,
+ * отображённых в память: после перезапуска он открывается с диска, а не строится заново из базы.
+ * Читатели получают неизменяемый снимок карты, замена индекса сайта — одна запись ссылки.
+ * Вместе с заменой сбрасывается кешированная выдача по этому сайту.
+ * Индекс нового поколения сайта строится заранее (stage) и в поиск по всем сайтам попадает
+ * только при promote — вместо индекса старого поколения, одной записью ссылки.
+ */
+@Component
+public class SearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndex.class);
+
+    private final SiteRepository siteRepository;
+    private final LemmaJdbcRepository lemmaJdbcRepository;
+    private final IndexJdbcRepository indexJdbcRepository;
+    private final SearchSettings settings;
+    private final SearchResultCache resultCache;
+    private final SegmentStore segmentStore;
+    private final ExecutorService mergeExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("search-index-merge").daemon(true).factory());
+
+    // Все построенные индексы, в том числе нового поколения, ещё не заменившего старое
+    private volatile Map<Integer, SiteIndex> partitions = Map.of();
+    // Индексы, по которым идёт поиск по всем сайтам
+    private volatile Map<Integer, SiteIndex> live = Map.of();
+    private final Set<Integer> staged = new HashSet<>();
+    // Сегменты, из которых построены индексы сайтов; меняются вместе с partitions
+    private final Map<Integer, SegmentSet> segments = new HashMap<>();
+
+    public SearchIndex(SiteRepository siteRepository, LemmaJdbcRepository lemmaJdbcRepository,
+                       IndexJdbcRepository indexJdbcRepository, SearchSettings settings,
+                       SearchResultCache resultCache) {
+        this.siteRepository = siteRepository;
+        this.lemmaJdbcRepository = lemmaJdbcRepository;
+        this.indexJdbcRepository = indexJdbcRepository;
+        this.settings = settings;
+        this.resultCache = resultCache;
+        this.segmentStore = new SegmentStore(Path.of(settings.getIndexDirectory()));
+    }
+
+    public SiteIndex get(int siteId) {
+        return partitions.get(siteId);
+    }
+
+    public Collection<SiteIndex> all() {
+        return live.values();
+    }
+
+    // После запуска приложения открываем сегменты проиндексированных сайтов; из базы строим только недостающие
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndexedSites() {
+        Thread.ofPlatform().name("search-index-loader").daemon(true).start(() -> {
+            for (Site site : siteRepository.findAllByStatus(IndexingStatus.INDEXED)) {
+                try {
+                    if (!open(site)) {
+                        rebuild(site);
+                    }
+                } catch (Exception e) {
+                    logger.error("Не удалось построить поисковый индекс сайта {}: {}", site.getUrl(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    // Строит индекс сайта по таблицам lemma и index и записывает его полным сегментом
+    public void rebuild(Site site) {
+        long started = System.currentTimeMillis();
+        Map<Integer, String> lemmaNames = lemmaJdbcRepository.findAllBySiteId(site.getId());
+        SiteIndexBuilder builder = new SiteIndexBuilder(site.getId());
+        indexJdbcRepository.forEachPosting(site.getId(), builder::add);
+
+        SiteIndex siteIndex;
+        try {
+            Segment segment = segmentStore.writeFull(site.getId(), builder.pageCount(), builder.buildPostings(lemmaNames));
+            siteIndex = install(site.getId(), new SegmentSet(List.of(segment)));
+        } catch (IOException e) {
+            // Без диска поиск всё равно должен работать — держим индекс в памяти до следующей перестройки
+            logger.error("Не удалось записать сегмент сайта {}, индекс остаётся в памяти: {}", site.getUrl(), e.getMessage());
+            siteIndex = builder.build(lemmaNames);
+            replace(site.getId(), siteIndex, null);
+            segmentStore.deleteSite(site.getId());
+        }
+        logger.info("Поисковый индекс сайта {} построен за {} мс: {} страниц, {} лемм", site.getUrl(),
+                System.currentTimeMillis() - started, siteIndex.getPageCount(), siteIndex.getLemmaCount());
+    }
+
+    // Строит индекс нового поколения сайта, не показывая его в поиске по всем сайтам до promote
+    public void stage(Site site) {
+        synchronized (this) {
+            staged.add(site.getId());
+        }
+        rebuild(site);
+    }
+
+    // Индекс нового поколения занимает место индекса старого; previousSiteId == null — старого нет
+    public synchronized void promote(int siteId, Integer previousSiteId) {
+        staged.remove(siteId);
+        Map<Integer, SiteIndex> updated = new HashMap<>(live);
+        SiteIndex siteIndex = partitions.get(siteId);
+        if (siteIndex != null) {
+            updated.put(siteId, siteIndex);
+        }
+        if (previousSiteId != null) {
+            updated.remove(previousSiteId);
+        }
+        live = Map.copyOf(updated);
+        resultCache.invalidate(siteId);
+        if (previousSiteId != null) {
+            resultCache.invalidate(previousSiteId);
+        }
+    }
+
+    /**
+     * Добавляет дельта-сегмент поверх индекса сайта: postings заменяют всё, что старые сегменты
+     * знали о страницах coveredPages. Если сегментов накопилось много, они сливаются в фоне.
+     */
+    public void applyDelta(Site site, int pageCount, SortedMap<String, PostingList> postings,
+                           int[] coveredPages) throws IOException {
+        Segment delta = segmentStore.writeDelta(site.getId(), pageCount, postings, coveredPages);
+        SegmentSet updated;
+        synchronized (this) {
+            SegmentSet current = segments.get(site.getId());
+            if (current == null) {
+                // Дельта без базового сегмента не описывает сайт целиком — индекс перестроится из базы
+                segmentStore.delete(delta);
+                updated = null;
+            } else {
+                List<Segment> newestFirst = new ArrayList<>();
+                newestFirst.add(delta);
+                newestFirst.addAll(current.segments());
+                updated = new SegmentSet(newestFirst);
+                install(site.getId(), updated);
+            }
+        }
+        if (updated == null) {
+            rebuild(site);
+        } else if (updated.segments().size() > settings.getMaxSegmentsPerSite()) {
+            mergeExecutor.execute(() -> mergeSegments(site.getId()));
+        }
+    }
+
+    /**
+     * Обновляет индекс сайта после повторного обхода: строки index страниц pageIds (отсортированных)
+     * читаются из базы и ложатся дельта-сегментом. pageCountDelta — изменение числа страниц с леммами.
+     */
+    public void refreshPages(Site site, int[] pageIds, int pageCountDelta) {
+        if (pageIds.length == 0) {
+            return;
+        }
+        SiteIndex current = get(site.getId());
+        if (current == null) {
+            rebuild(site);
+            return;
+        }
+        Map<Integer, String> lemmaNames = lemmaJdbcRepository.findAllBySiteId(site.getId());
+        SiteIndexBuilder builder = new SiteIndexBuilder(site.getId());
+        indexJdbcRepository.forEachPosting(Arrays.stream(pageIds).boxed().toList(), builder::add);
+        try {
+            applyDelta(site, Math.max(0, current.getPageCount() + pageCountDelta),
+                    builder.buildPostings(lemmaNames), pageIds);
+            logger.info("Поисковый индекс сайта {} обновлён дельтой: {} страниц", site.getUrl(), pageIds.length);
+        } catch (IOException e) {
+            logger.error("Не удалось записать дельта-сегмент сайта {}, индекс будет перестроен: {}",
+                    site.getUrl(), e.getMessage());
+            rebuild(site);
+        }
+    }
+
+    public void remove(int siteId) {
+        synchronized (this) {
+            replace(siteId, null, null);
+            staged.remove(siteId);
+        }
+        segmentStore.deleteSite(siteId);
+    }
+
+    private boolean open(Site site) {
+        try {
+            List<Segment> opened = segmentStore.open(site.getId());
+            if (opened.isEmpty()) {
+                return false;
+            }
+            SiteIndex siteIndex = install(site.getId(), new SegmentSet(opened));
+            logger.info("Поисковый индекс сайта {} открыт с диска: {} сегментов, {} страниц, {} лемм", site.getUrl(),
+                    opened.size(), siteIndex.getPageCount(), siteIndex.getLemmaCount());
+            return true;
+        } catch (IOException e) {
+            logger.warn("Сегменты сайта {} не читаются ({}), индекс будет построен из базы", site.getUrl(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void mergeSegments(int siteId) {
+        SegmentSet source;
+        synchronized (this) {
+            source = segments.get(siteId);
+        }
+        if (source == null || source.segments().size() <= 1) {
+            return;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            Segment merged = segmentStore.merge(siteId, source);
+            synchronized (this) {
+                SegmentSet current = segments.get(siteId);
+                if (current == null || !current.segments().containsAll(source.segments())) {
+                    // Пока шло слияние, сайт перестроили или удалили — результат не нужен
+                    segmentStore.delete(merged);
+                    return;
+                }
+                List<Segment> newestFirst = new ArrayList<>(current.segments());
+                newestFirst.removeAll(source.segments());
+                newestFirst.add(merged);
+                install(siteId, new SegmentSet(newestFirst));
+            }
+            logger.info("Сегменты сайта {} слиты за {} мс: {} → 1", siteId,
+                    System.currentTimeMillis() - started, source.segments().size());
+        } catch (IOException e) {
+            logger.error("Не удалось слить сегменты сайта {}: {}", siteId, e.getMessage());
+        }
+    }
+
+    // Ставит индекс из сегментов и удаляет файлы, которые новый набор больше не читает
+    private synchronized SiteIndex install(int siteId, SegmentSet segmentSet) {
+        SiteIndex siteIndex = new SiteIndex(siteId, segmentSet.pageCount(), segmentSet);
+        SegmentSet previous = replace(siteId, siteIndex, segmentSet);
+        if (previous != null) {
+            // Результат слияния занимает файл самого нового из слитых сегментов — его не трогаем
+            Set<Path> inUse = new HashSet<>();
+            segmentSet.segments().forEach(segment -> inUse.add(segment.getPath()));
+            for (Segment segment : previous.segments()) {
+                if (!inUse.contains(segment.getPath())) {
+                    segmentStore.delete(segment);
+                }
+            }
+        }
+        return siteIndex;
+    }
+
+    private synchronized SegmentSet replace(int siteId, SiteIndex siteIndex, SegmentSet segmentSet) {
+        partitions = with(partitions, siteId, siteIndex);
+        if (!staged.contains(siteId)) {
+            live = with(live, siteId, siteIndex);
+        }
+        // Любая замена индекса сайта — полная перестройка, дельта после переиндексации или удаление
+        resultCache.invalidate(siteId);
+        return segmentSet == null ? segments.remove(siteId) : segments.put(siteId, segmentSet);
+    }
+
+    private static Map<Integer, SiteIndex> with(Map<Integer, SiteIndex> map, int siteId, SiteIndex siteIndex) {
+        Map<Integer, SiteIndex> updated = new HashMap<>(map);
+        if (siteIndex == null) {
+            updated.remove(siteId);
+        } else {
+            updated.put(siteId, siteIndex);
+        }
+        return Map.copyOf(updated);
+    }
+}
@@ -0,0 +1,136 @@
+package searchengine.services;
+
+import org.springframework.stereotype.Component;
+import searchengine.config.SearchSettings;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Кеш ранжированных результатов поиска: (отсортированные леммы запроса, сайт) → страницы выдачи.
+ * Постраничный просмотр выдачи и популярные запросы не ранжируют страницы заново.
+ * Размер ограничен (LRU), записи устаревают по времени, а при любой замене индекса сайта
+ * удаляются записи этого сайта и записи поиска по всем сайтам.
+ */
+@Component
+public class SearchResultCache {
+
+    private final SearchSettings settings;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Key, Entry> entries;
+    // Растёт при каждой инвалидации: результат, посчитанный по старому индексу, не кладётся в кеш
+    private long generation;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SearchResultCache(SearchSettings settings) {
+        this.settings = settings;
+        int capacity = settings.getResultCache().getSize();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public RankedPages get(Key key) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() - System.nanoTime() > 0) {
+                hits.increment();
+                return entry.pages();
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+            misses.increment();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Запоминается перед ранжированием и передаётся в put
+    public long generation() {
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Хранится только начало выдачи: дальние страницы запрашивают редко, а память они занимают
+    public void put(Key key, RankedPages pages, long rankedAt) {
+        SearchSettings.ResultCache cacheSettings = settings.getResultCache();
+        if (cacheSettings.getSize() <= 0) {
+            return;
+        }
+        Entry entry = new Entry(pages.top(cacheSettings.getDepth()),
+                System.nanoTime() + cacheSettings.getTtl().toNanos());
+        lock.lock();
+        try {
+            if (rankedAt == generation) {
+                entries.put(key, entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Индекс сайта заменён: его выдача и выдача по всем сайтам больше не верны
+    public void invalidate(int siteId) {
+        lock.lock();
+        try {
+            generation++;
+            entries.keySet().removeIf(key -> key.siteId() == null || key.siteId() == siteId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Ключ кеша. siteId == null — поиск по всем сайтам.
+     */
+    public record Key(List<String> lemmas, Integer siteId) {
+
+        public static Key of(Collection<String> lemmas, Integer siteId) {
+            return new Key(lemmas.stream().sorted().toList(), siteId);
+        }
+    }
+
+    /**
+     * Выдача по возрастанию релевантности: (релевантность, страница) упакованы в long.
+     * pages может содержать только лучшие страницы, total — сколько их найдено всего.
+     */
+    public record RankedPages(long[] pages, int total) {
+
+        // Хватает ли сохранённого начала выдачи, чтобы отдать первые count страниц
+        public boolean covers(int count) {
+            return pages.length == total || count <= pages.length;
+        }
+
+        RankedPages top(int depth) {
+            return pages.length <= depth ? this
+                    : new RankedPages(Arrays.copyOfRange(pages, pages.length - depth, pages.length), total);
+        }
+    }
+
+    private record Entry(RankedPages pages, long expiresAt) {
+    }
+}
@@ -0,0 +1,276 @@
+package searchengine.services;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+import searchengine.config.SearchSettings;
+import searchengine.dto.search.SearchData;
+import searchengine.dto.search.SearchResponse;
+import searchengine.index.SiteIndex;
+import searchengine.index.SiteMatches;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import searchengine.repository.IndexJdbcRepository;
+import searchengine.repository.PageJdbcRepository;
+import searchengine.repository.SiteRepository;
+import searchengine.utils.ContentCodec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+@Service
+public class SearchService {
+
+    private static final Pattern WORD = Pattern.compile("[a-zA-Zа-яА-ЯёЁ]+");
+
+    private final LemmaService lemmaService;
+    private final SearchIndex searchIndex;
+    private final SiteRepository siteRepository;
+    private final PageJdbcRepository pageJdbcRepository;
+    private final IndexJdbcRepository indexJdbcRepository;
+    private final SearchResultCache resultCache;
+    private final ExecutorService searchExecutor;
+    private final SearchSettings settings;
+
+    public SearchService(LemmaService lemmaService, SearchIndex searchIndex, SiteRepository siteRepository,
+                         PageJdbcRepository pageJdbcRepository, IndexJdbcRepository indexJdbcRepository,
+                         SearchResultCache resultCache, @Qualifier("searchExecutor") ExecutorService searchExecutor,
+                         SearchSettings settings) {
+        this.lemmaService = lemmaService;
+        this.searchIndex = searchIndex;
+        this.siteRepository = siteRepository;
+        this.pageJdbcRepository = pageJdbcRepository;
+        this.indexJdbcRepository = indexJdbcRepository;
+        this.resultCache = resultCache;
+        this.searchExecutor = searchExecutor;
+        this.settings = settings;
+    }
+
+    public SearchResponse search(String query, String siteUrl, int offset, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Задан пустой поисковый запрос");
+        }
+        Set<String> lemmas = lemmaService.collectLemmas(query).keySet();
+        if (lemmas.isEmpty()) {
+            throw new IllegalArgumentException("В запросе нет слов, по которым можно искать");
+        }
+
+        Collection<SiteIndex> partitions;
+        Integer siteId = null;
+        if (siteUrl == null || siteUrl.isBlank()) {
+            partitions = searchIndex.all();
+        } else {
+            Site site = siteRepository.findByUrl(siteUrl);
+            SiteIndex siteIndex = site == null ? null : searchIndex.get(site.getId());
+            if (siteIndex == null) {
+                throw new IllegalArgumentException("Указанный сайт не проиндексирован");
+            }
+            partitions = List.of(siteIndex);
+            siteId = site.getId();
+        }
+
+        offset = Math.max(0, offset);
+        limit = Math.max(0, limit);
+        int wanted = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+        // Следующая страница выдачи или повторный запрос берутся из кеша без ранжирования
+        SearchResultCache.Key key = SearchResultCache.Key.of(lemmas, siteId);
+        SearchResultCache.RankedPages ranked = resultCache.get(key);
+        if (ranked == null || !ranked.covers(wanted)) {
+            long generation = resultCache.generation();
+            // Ранжируется столько страниц, сколько сохранит кеш, но не меньше запрошенных
+            ranked = rank(partitions, lemmas, Math.max(settings.getResultCache().getDepth(), wanted));
+            resultCache.put(key, ranked, generation);
+        }
+
+        SearchResponse response = new SearchResponse();
+        response.setResult(true);
+        response.setCount(ranked.total());
+        response.setData(buildPageData(ranked.pages(), offset, limit, lemmas));
+        return response;
+    }
+
+    /**
+     * Ранжирование по индексам сайтов: каждый сайт ищется отдельно (параллельно, если сайтов несколько)
+     * и отдаёт только свои лучшие k страниц, которые затем сливаются кучей в общие лучшие k.
+     */
+    private SearchResultCache.RankedPages rank(Collection<SiteIndex> partitions, Set<String> lemmas, int k) {
+        List<Callable<SiteTop>> tasks = partitions.stream()
+                .map(siteIndex -> (Callable<SiteTop>) () -> searchSite(siteIndex, lemmas, k))
+                .toList();
+        List<SiteTop> tops = new ArrayList<>(tasks.size());
+        if (tasks.size() == 1) {
+            tops.add(searchSite(partitions.iterator().next(), lemmas, k));
+        } else {
+            try {
+                for (Future<SiteTop> future : searchExecutor.invokeAll(tasks)) {
+                    tops.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Поиск прерван", e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause
+                        : new IllegalStateException("Ошибка поиска по индексу сайта", e.getCause());
+            }
+        }
+        return merge(tops, k);
+    }
+
+    private SiteTop searchSite(SiteIndex siteIndex, Set<String> lemmas, int k) {
+        SiteMatches matches = siteIndex.search(lemmas, settings.getMaxLemmaPageRatio());
+        return new SiteTop(matches.top(k), matches.size());
+    }
+
+    // Слияние выдач сайтов (каждая по возрастанию) от лучших к худшим через кучу из голов списков
+    private static SearchResultCache.RankedPages merge(List<SiteTop> tops, int k) {
+        int total = 0;
+        int available = 0;
+        for (SiteTop top : tops) {
+            total += top.total();
+            available += top.pages().length;
+        }
+        if (tops.size() == 1) {
+            return new SearchResultCache.RankedPages(tops.get(0).pages(), total);
+        }
+        int[] heads = new int[tops.size()];
+        PriorityQueue<Integer> heap = new PriorityQueue<>(tops.size(), (a, b) ->
+                Long.compare(tops.get(b).pages()[heads[b]], tops.get(a).pages()[heads[a]]));
+        for (int i = 0; i < tops.size(); i++) {
+            heads[i] = tops.get(i).pages().length - 1;
+            if (heads[i] >= 0) {
+                heap.add(i);
+            }
+        }
+        long[] ranked = new long[Math.min(k, available)];
+        for (int position = ranked.length - 1; position >= 0; position--) {
+            int site = heap.poll();
+            ranked[position] = tops.get(site).pages()[heads[site]--];
+            if (heads[site] >= 0) {
+                heap.add(site);
+            }
+        }
+        return new SearchResultCache.RankedPages(ranked, total);
+    }
+
+    private List<SearchData> buildPageData(long[] ranked, int offset, int limit, Set<String> lemmas) {
+        if (ranked.length == 0 || offset >= ranked.length) {
+            return List.of();
+        }
+        float maxRelevance = SiteMatches.relevanceOf(ranked[ranked.length - 1]);
+        int from = ranked.length - 1 - offset;
+        int to = Math.max(-1, from - limit);
+
+        List<Integer> pageIds = new ArrayList<>();
+        for (int i = from; i > to; i--) {
+            pageIds.add(SiteMatches.pageIdOf(ranked[i]));
+        }
+        Map<Integer, Page> pages = pageJdbcRepository.findForSearch(pageIds).stream()
+                .collect(Collectors.toMap(Page::getId, Function.identity()));
+        Map<Integer, Map<String, int[]>> positions = indexJdbcRepository.findPositions(pageIds, lemmas);
+        // Загружаются только сайты найденных страниц
+        Set<Integer> siteIds = pages.values().stream()
+                .map(page -> page.getSite().getId())
+                .collect(Collectors.toSet());
+        Map<Integer, Site> sites = new HashMap<>();
+        siteRepository.findAllById(siteIds).forEach(site -> sites.put(site.getId(), site));
+
+        List<SearchData> data = new ArrayList<>();
+        for (int i = from; i > to; i--) {
+            Page page = pages.get(SiteMatches.pageIdOf(ranked[i]));
+            if (page == null) {
+                continue;
+            }
+            Site site = sites.get(page.getSite().getId());
+            // Строку старого поколения удаляют вскоре после переключения — такие страницы пропускаются
+            if (site == null) {
+                continue;
+            }
+            SearchData item = new SearchData();
+            item.setSite(SiteGenerations.liveUrl(site.getUrl()));
+            item.setSiteName(site.getName());
+            item.setUri(page.getPath());
+            item.setTitle(page.getTitle());
+            item.setSnippet(snippet(page, positions.get(page.getId()), lemmas));
+            item.setRelevance(SiteMatches.relevanceOf(ranked[i]) / maxRelevance);
+            data.add(item);
+        }
+        return data;
+    }
+
+    private String snippet(Page page, Map<String, int[]> positions, Set<String> lemmas) {
+        if (positions == null || page.getTextCompressed() == null) {
+            return buildSnippet(page.getText(), lemmas);
+        }
+        // Позиции записаны при индексации: распаковывается только начало текста до конца окна
+        SnippetBuilder builder = new SnippetBuilder(positions, settings.getSnippetLength());
+        return builder.build(ContentCodec.decompress(page.getTextCompressed(), builder.requiredChars()));
+    }
+
+    // Страницы, проиндексированные до записи позиций: фрагмент вокруг первого слова запроса,
+    // найденного лемматизацией текста, совпадения выделены <b>
+    private String buildSnippet(String text, Set<String> lemmas) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        int length = settings.getSnippetLength();
+        Matcher matcher = WORD.matcher(text);
+        int firstMatch = -1;
+        while (matcher.find()) {
+            if (isQueryWord(matcher.group(), lemmas)) {
+                firstMatch = matcher.start();
+                break;
+            }
+        }
+        if (firstMatch < 0) {
+            return HtmlUtils.htmlEscape(text.substring(0, Math.min(text.length(), length)));
+        }
+
+        int start = Math.max(0, firstMatch - length / 3);
+        while (start > 0 && !Character.isWhitespace(text.charAt(start - 1))) {
+            start--;
+        }
+        int end = Math.min(text.length(), start + length);
+
+        StringBuilder snippet = new StringBuilder(length + 32);
+        if (start > 0) {
+            snippet.append("...");
+        }
+        int last = start;
+        matcher.region(start, end);
+        while (matcher.find()) {
+            if (isQueryWord(matcher.group(), lemmas)) {
+                snippet.append(HtmlUtils.htmlEscape(text.substring(last, matcher.start())))
+                        .append("<b>").append(HtmlUtils.htmlEscape(matcher.group())).append("</b>");
+                last = matcher.end();
+            }
+        }
+        snippet.append(HtmlUtils.htmlEscape(text.substring(last, end)));
+        if (end < text.length()) {
+            snippet.append("...");
+        }
+        return snippet.toString();
+    }
+
+    private boolean isQueryWord(String word, Set<String> lemmas) {
+        String lemma = lemmaService.lemmaOf(word.toLowerCase(Locale.ROOT));
+        return lemma != null && lemmas.contains(lemma);
+    }
+
+    // Лучшие страницы сайта по возрастанию релевантности и число всех найденных на нём
+    private record SiteTop(long[] pages, int total) {
+    }
+}
@@ -0,0 +1,286 @@
+package searchengine.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import searchengine.config.CrawlerSettings;
+import searchengine.utils.VisitedUrlSet;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Обход сайта по явной очереди (CrawlFrontier) без рекурсии задач. Диспетчер забирает ссылки
+ * из очереди пачками по приоритету и запускает загрузку каждой только после получения
+ * разрешений сайта и общего лимита, поэтому число одновременных запросов ограничено.
+ * Загрузки выполняются в пуле режима обхода: в виртуальных потоках ожидание ответа
+ * не занимает потоки-носители. Ссылки глубже max-depth и сверх max-pages-per-site не добавляются.
+ * Очередь, загружаемые сейчас ссылки и посещённые URL периодически сохраняются контрольной точкой,
+ * с которой обход можно продолжить после остановки или перезапуска приложения.
+ */
+public class SiteCrawler {
+    private static final Logger logger = LoggerFactory.getLogger(SiteCrawler.class);
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final String startUrl;
+    private final PageProcessor pageProcessor;
+    private final IndexingService indexingService;
+    private final ExecutorService pool;
+    private final Semaphore sitePermits;
+    private final Semaphore globalPermits;
+    private final VisitedUrlSet visitedUrls;
+    private final int batchSize;
+    // 0 — без ограничения
+    private final int maxDepth;
+    private final int maxPages;
+
+    private final CrawlFrontier frontier = new CrawlFrontier();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Ссылок, принятых в обход: вместе со стартовой страницей не больше maxPages
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final AtomicBoolean limitLogged = new AtomicBoolean();
+
+    // Ссылки, взятые из очереди и ещё не обработанные: при продолжении обхода они загружаются заново
+    private final Map<String, CrawlFrontier.Entry> claimed = new ConcurrentHashMap<>();
+    // Добавление ссылок — под чтением, снимок для контрольной точки — под записью:
+    // посещённые URL, очередь и взятые ссылки в снимке согласованы между собой
+    private final ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private List<CrawlFrontier.Entry> resumeFrontier;
+    private SeedSource seedSource;
+    private Checkpointer checkpointer;
+    private long checkpointIntervalNanos;
+
+    // pool принадлежит обходу и закрывается по его окончании
+    public SiteCrawler(String startUrl, PageProcessor pageProcessor, IndexingService indexingService,
+                       ExecutorService pool, CrawlerSettings settings, Semaphore globalPermits,
+                       VisitedUrlSet visitedUrls) {
+        this.startUrl = startUrl;
+        this.pageProcessor = pageProcessor;
+        this.indexingService = indexingService;
+        this.pool = pool;
+        this.sitePermits = new Semaphore(settings.getMaxInFlightPerSite());
+        this.globalPermits = globalPermits;
+        this.visitedUrls = visitedUrls;
+        this.batchSize = Math.max(1, settings.getMaxInFlightPerSite());
+        this.maxDepth = settings.getMaxDepth();
+        this.maxPages = settings.getMaxPagesPerSite();
+    }
+
+    // Продолжение обхода: очередь из контрольной точки, посещённые URL уже восстановлены в visitedUrls
+    public void resumeFrom(List<CrawlFrontier.Entry> frontier) {
+        this.resumeFrontier = frontier;
+    }
+
+    // Дополнительные стартовые адреса (sitemap.xml) на глубине 1; при продолжении обхода не читаются
+    public void seedFrom(SeedSource seedSource) {
+        this.seedSource = seedSource;
+    }
+
+    // Контрольная точка сохраняется раз в interval и при остановке незавершённого обхода
+    public void checkpointEvery(Duration interval, Checkpointer checkpointer) {
+        this.checkpointIntervalNanos = interval.toNanos();
+        this.checkpointer = checkpointer;
+    }
+
+    // Обходит сайт и возвращает управление, когда очередь пуста или индексация остановлена
+    public void crawl() throws InterruptedException {
+        boolean completed = false;
+        try (pool) {
+            if (resumeFrontier != null) {
+                frontier.addAll(resumeFrontier);
+                admitted.set(visitedUrls.size());
+                logger.info("Обход {} продолжается с контрольной точки: {} ссылок в очереди, {} посещённых URL.",
+                        startUrl, resumeFrontier.size(), visitedUrls.size());
+            } else {
+                enqueue(CrawlFrontier.Entry.seed(startUrl, 0));
+                if (seedSource != null) {
+                    seedSource.seed(url -> enqueue(CrawlFrontier.Entry.seed(url, 1)));
+                }
+            }
+            long nextCheckpoint = System.nanoTime() + checkpointIntervalNanos;
+            dispatch:
+            while (indexingService.isIndexingInProgress()) {
+                if (checkpointer != null && System.nanoTime() - nextCheckpoint >= 0) {
+                    saveCheckpoint();
+                    nextCheckpoint = System.nanoTime() + checkpointIntervalNanos;
+                }
+                List<CrawlFrontier.Entry> batch = frontier.poll(batchSize, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (batch.isEmpty()) {
+                    // Задачи добавляют ссылки в очередь до уменьшения счётчика,
+                    // поэтому пустая очередь без активных задач означает конец обхода
+                    if (inFlight.get() == 0 && frontier.isEmpty()) {
+                        completed = true;
+                        break;
+                    }
+                    continue;
+                }
+                // Взятая пачка целиком попадает в контрольную точку, пока ссылки не обработаны
+                batch.forEach(entry -> claimed.put(entry.url(), entry));
+
+                for (CrawlFrontier.Entry entry : batch) {
+                    if (!indexingService.isIndexingInProgress()) {
+                        break dispatch;
+                    }
+                    sitePermits.acquire();
+                    try {
+                        globalPermits.acquire();
+                    } catch (InterruptedException e) {
+                        sitePermits.release();
+                        throw e;
+                    }
+                    inFlight.incrementAndGet();
+                    try {
+                        pool.submit(() -> fetch(entry));
+                    } catch (RejectedExecutionException e) {
+                        // Пул уже закрыт вызовом stop()
+                        inFlight.decrementAndGet();
+                        globalPermits.release();
+                        sitePermits.release();
+                        break dispatch;
+                    }
+                }
+            }
+            if (!indexingService.isIndexingInProgress()) {
+                logger.info("Обход {} остановлен, в очереди осталось {} ссылок.", startUrl, frontier.size());
+                pool.shutdownNow();
+            }
+        } finally {
+            if (!completed && checkpointer != null) {
+                // Остановка прерывает поток обхода — сохранение контрольной точки не должно прерываться
+                boolean interrupted = Thread.interrupted();
+                try {
+                    saveCheckpoint();
+                } finally {
+                    if (interrupted) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+    }
+
+    // Ссылок, ожидающих загрузки
+    public int frontierSize() {
+        return frontier.size();
+    }
+
+    // Загрузок, которые выполняются сейчас
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    // Прерывает загрузки, которые ещё выполняются
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    private void fetch(CrawlFrontier.Entry entry) {
+        try {
+            if (!indexingService.isIndexingInProgress()) {
+                logger.debug("Индексация прервана перед запросом для URL: {}", entry.url());
+                return;
+            }
+            List<String> links = pageProcessor.process(entry.url());
+            snapshotLock.readLock().lock();
+            try {
+                if (maxDepth <= 0 || entry.depth() < maxDepth) {
+                    for (String link : links) {
+                        enqueue(entry.child(link));
+                    }
+                }
+                // Прерванная остановкой загрузка остаётся взятой и попадёт в контрольную точку
+                if (indexingService.isIndexingInProgress()) {
+                    claimed.remove(entry.url());
+                }
+            } finally {
+                snapshotLock.readLock().unlock();
+            }
+        } finally {
+            inFlight.decrementAndGet();
+            globalPermits.release();
+            sitePermits.release();
+        }
+    }
+
+    private void saveCheckpoint() {
+        Snapshot snapshot;
+        snapshotLock.writeLock().lock();
+        try {
+            List<CrawlFrontier.Entry> pending = new ArrayList<>(claimed.size() + frontier.size());
+            pending.addAll(claimed.values());
+            pending.addAll(frontier.entries());
+            snapshot = new Snapshot(pending, visitedUrls.snapshot());
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+        try {
+            checkpointer.save(snapshot);
+        } catch (Exception e) {
+            logger.warn("Не удалось сохранить контрольную точку обхода {}: {}", startUrl, e.getMessage());
+        }
+    }
+
+    // url должен быть нормализован: PageProcessor возвращает ссылки уже в таком виде
+    private void enqueue(CrawlFrontier.Entry entry) {
+        if (!reserveSlot()) {
+            if (limitLogged.compareAndSet(false, true)) {
+                logger.info("Обход {} достиг лимита в {} страниц, новые ссылки не добавляются.", startUrl, maxPages);
+            }
+            return;
+        }
+        if (visitedUrls.add(entry.url())) {
+            frontier.add(entry);
+            logger.debug("Добавлена ссылка в обработку: {}", entry.url());
+        } else if (maxPages > 0) {
+            // Ссылка уже посещена — место возвращается
+            admitted.decrementAndGet();
+        }
+    }
+
+    // Занимает место под ссылку одним CAS: задачи обхода добавляют ссылки параллельно
+    private boolean reserveSlot() {
+        if (maxPages <= 0) {
+            return true;
+        }
+        while (true) {
+            int current = admitted.get();
+            if (current >= maxPages) {
+                return false;
+            }
+            if (admitted.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Сохраняет снимок обхода. Вызывается из потока-диспетчера; прежде чем записать снимок,
+     * реализация должна дождаться записи страниц, уже отданных в PageWriter.
+     */
+    @FunctionalInterface
+    public interface Checkpointer {
+        void save(Snapshot snapshot) throws Exception;
+    }
+
+    // Передаёт нормализованные URL страниц сайта; вызывается из потока обхода до начала загрузок
+    @FunctionalInterface
+    public interface SeedSource {
+        void seed(Consumer<String> urls) throws InterruptedException;
+    }
+
+    // frontier — ссылки, которые нужно загрузить при продолжении обхода
+    public record Snapshot(List<CrawlFrontier.Entry> frontier, VisitedUrlSet.Snapshot visited) {
+    }
+}
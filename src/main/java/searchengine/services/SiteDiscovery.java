@@ -0,0 +1,142 @@
+package searchengine.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import searchengine.config.CrawlerSettings;
+import searchengine.model.Site;
+import searchengine.utils.RobotsTxt;
+import searchengine.utils.SitemapReader;
+import searchengine.utils.UrlNormalizer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Источники адресов сайта помимо ссылок на страницах: robots.txt и sitemap.xml.
+ * robots.txt задаёт, какие ссылки обход не загружает, и паузу между запросами к хосту;
+ * sitemap.xml (и вложенные карты из sitemapindex) засевает очередь обхода страницами,
+ * до которых по ссылкам далеко или не дойти. Запросы идут через бюджет хоста, как и страницы.
+ */
+@Component
+public class SiteDiscovery {
+    private static final Logger logger = LoggerFactory.getLogger(SiteDiscovery.class);
+    // Google читает не больше 500 КиБ robots.txt, остальное игнорирует
+    private static final int MAX_ROBOTS_BYTES = 500 * 1024;
+
+    private final PageDownloader pageDownloader;
+    private final CrawlScheduler crawlScheduler;
+    private final CrawlerSettings settings;
+
+    public SiteDiscovery(PageDownloader pageDownloader, CrawlScheduler crawlScheduler, CrawlerSettings settings) {
+        this.pageDownloader = pageDownloader;
+        this.crawlScheduler = crawlScheduler;
+        this.settings = settings;
+    }
+
+    /**
+     * Правила robots.txt сайта; Crawl-delay сразу применяется к бюджету хоста.
+     * site — строка с URL живого сайта. Файла нет или он не загрузился — ограничений нет.
+     */
+    public RobotsTxt loadRobots(Site site) throws InterruptedException {
+        if (!settings.getDiscovery().isRobotsTxt()) {
+            return RobotsTxt.allowAll();
+        }
+        String robotsUrl = root(site.getUrl()) + "/robots.txt";
+        RobotsTxt robots;
+        try (CrawlScheduler.Permit ignored = crawlScheduler.acquire(site)) {
+            robots = pageDownloader.read(robotsUrl, MAX_ROBOTS_BYTES, (body, contentType) ->
+                    RobotsTxt.parse(new String(body.readAllBytes(), StandardCharsets.UTF_8),
+                            settings.getDiscovery().getRobotsAgent()));
+        } catch (PageDownloader.HttpStatusException e) {
+            logger.info("robots.txt сайта {} недоступен (HTTP {}), ограничений нет.", site.getUrl(), e.getStatusCode());
+            return RobotsTxt.allowAll();
+        } catch (IOException e) {
+            logger.warn("robots.txt сайта {} не загрузился, ограничений нет: {}", site.getUrl(), e.getMessage());
+            return RobotsTxt.allowAll();
+        }
+        Duration delay = robots.getCrawlDelay();
+        if (delay != null) {
+            Duration maxDelay = settings.getDiscovery().getMaxCrawlDelay();
+            if (delay.compareTo(maxDelay) > 0) {
+                logger.warn("Crawl-delay сайта {} ({} мс) больше допустимого, используется {} мс.",
+                        site.getUrl(), delay.toMillis(), maxDelay.toMillis());
+                delay = maxDelay;
+            }
+            crawlScheduler.respectCrawlDelay(site, delay);
+        }
+        return robots;
+    }
+
+    /**
+     * Передаёт в seeds нормализованные адреса страниц сайта из его sitemap: из строк Sitemap
+     * в robots.txt, а если их нет — из /sitemap.xml. Адреса других сайтов и запрещённые
+     * robots.txt отбрасываются. Возвращает число переданных адресов.
+     */
+    public int readSitemaps(Site site, RobotsTxt robots, Consumer<String> seeds) throws InterruptedException {
+        CrawlerSettings.Discovery discovery = settings.getDiscovery();
+        if (!discovery.isSitemaps()) {
+            return 0;
+        }
+        String root = root(site.getUrl());
+        Deque<String> pending = new ArrayDeque<>();
+        robots.getSitemaps().forEach(pending::add);
+        if (pending.isEmpty()) {
+            pending.add(root + "/sitemap.xml");
+        }
+
+        Set<String> seen = new HashSet<>();
+        int[] accepted = {0};
+        int read = 0;
+        while (!pending.isEmpty() && read < discovery.getMaxSitemaps()
+                && accepted[0] < discovery.getMaxSitemapUrls()) {
+            String sitemapUrl = pending.poll();
+            // Карты на чужом хосте не читаются: бюджет запросов у обхода только на свой хост
+            if (!seen.add(sitemapUrl) || !sitemapUrl.startsWith(root + "/")) {
+                continue;
+            }
+            read++;
+            try (CrawlScheduler.Permit ignored = crawlScheduler.acquire(site)) {
+                int urls = pageDownloader.read(sitemapUrl, SitemapReader.MAX_UNCOMPRESSED_BYTES, (body, contentType) ->
+                        SitemapReader.read(body, discovery.getMaxSitemapUrls() - accepted[0], loc -> {
+                            String url = accept(site, robots, loc);
+                            if (url != null) {
+                                seeds.accept(url);
+                                accepted[0]++;
+                            }
+                        }, pending::add));
+                logger.debug("Sitemap {}: {} адресов.", sitemapUrl, urls);
+            } catch (PageDownloader.HttpStatusException e) {
+                logger.debug("Sitemap {} недоступен (HTTP {}).", sitemapUrl, e.getStatusCode());
+            } catch (IOException e) {
+                // Адреса, прочитанные до ошибки, уже в очереди
+                logger.warn("Sitemap {} прочитан не полностью: {}", sitemapUrl, e.getMessage());
+            }
+        }
+        if (accepted[0] > 0) {
+            logger.info("Из sitemap сайта {} ({} файлов) в очередь обхода добавлено {} адресов.",
+                    site.getUrl(), read, accepted[0]);
+        }
+        return accepted[0];
+    }
+
+    private static String accept(Site site, RobotsTxt robots, String loc) {
+        if (!loc.startsWith(site.getUrl())) {
+            return null;
+        }
+        String url = UrlNormalizer.normalize(loc);
+        return url != null && robots.isAllowedUrl(url) ? url : null;
+    }
+
+    // Схема и хост сайта без пути: robots.txt и sitemap.xml лежат в корне хоста
+    private static String root(String siteUrl) {
+        int slash = siteUrl.indexOf('/', siteUrl.indexOf("//") + 2);
+        return slash < 0 ? siteUrl : siteUrl.substring(0, slash);
+    }
+}
@@ -0,0 +1,180 @@
+package searchengine.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import searchengine.model.IndexingStatus;
+import searchengine.model.Site;
+import searchengine.repository.IndexJdbcRepository;
+import searchengine.repository.LemmaJdbcRepository;
+import searchengine.repository.PageJdbcRepository;
+import searchengine.repository.SiteRepository;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поколения сайта при полной переиндексации. Новое поколение обходится в отдельную строку site,
+ * URL которой помечен меткой поколения, а старое всё это время отвечает на поиск.
+ * После обхода строится индекс нового поколения, и в одной транзакции строки меняются URL;
+ * старое поколение удаляется в фоне. Неудачный обход удаляется, старое поколение остаётся.
+ */
+@Component
+public class SiteGenerations {
+    private static final Logger logger = LoggerFactory.getLogger(SiteGenerations.class);
+
+    static final String GENERATION_MARK = "#g";
+    // Поиск, успевший получить id старого поколения до переключения, дочитывает его страницы
+    private static final Duration RETIRE_DELAY = Duration.ofSeconds(30);
+
+    private final SiteRepository siteRepository;
+    private final PageJdbcRepository pageJdbcRepository;
+    private final LemmaJdbcRepository lemmaJdbcRepository;
+    private final IndexJdbcRepository indexJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SearchIndex searchIndex;
+    private final StatisticsCounters statisticsCounters;
+    private final CrawlCheckpoints crawlCheckpoints;
+    private final ScheduledExecutorService cleaner = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("site-generation-gc").daemon(true).factory());
+
+    public SiteGenerations(SiteRepository siteRepository, PageJdbcRepository pageJdbcRepository,
+                           LemmaJdbcRepository lemmaJdbcRepository, IndexJdbcRepository indexJdbcRepository,
+                           TransactionTemplate transactionTemplate, SearchIndex searchIndex,
+                           StatisticsCounters statisticsCounters, CrawlCheckpoints crawlCheckpoints) {
+        this.siteRepository = siteRepository;
+        this.pageJdbcRepository = pageJdbcRepository;
+        this.lemmaJdbcRepository = lemmaJdbcRepository;
+        this.indexJdbcRepository = indexJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.searchIndex = searchIndex;
+        this.statisticsCounters = statisticsCounters;
+        this.crawlCheckpoints = crawlCheckpoints;
+    }
+
+    // URL живого сайта для строки любого поколения
+    public static String liveUrl(String url) {
+        int mark = url.indexOf(GENERATION_MARK);
+        return mark < 0 ? url : url.substring(0, mark);
+    }
+
+    public static boolean isGeneration(String url) {
+        return url.contains(GENERATION_MARK);
+    }
+
+    // Строки поколений, оставшиеся от прерванной работы приложения, удаляются при запуске,
+    // кроме тех, обход которых можно продолжить с контрольной точки
+    @EventListener(ApplicationReadyEvent.class)
+    public void collectGarbage() {
+        cleaner.execute(() -> {
+            Set<Integer> resumable = crawlCheckpoints.siteIds();
+            siteRepository.findAllByUrlContaining(GENERATION_MARK).stream()
+                    .filter(site -> !resumable.contains(site.getId()))
+                    .forEach(this::delete);
+        });
+    }
+
+    // Строка нового поколения: обход пишет страницы и леммы под её id
+    public Site createShadow(searchengine.config.Site configSite) {
+        Site shadow = new Site();
+        shadow.setName(configSite.getName());
+        shadow.setUrl(configSite.getUrl() + GENERATION_MARK + System.currentTimeMillis());
+        shadow.updateStatus(IndexingStatus.INDEXING, null);
+        siteRepository.save(shadow);
+        return shadow;
+    }
+
+    // Та же строка с URL живого сайта: по нему обход отбирает ссылки и выбирает бюджет хоста
+    public static Site crawlView(Site shadow) {
+        return new Site(shadow.getId(), shadow.getStatus(), shadow.getStatusTime(), shadow.getLastError(),
+                liveUrl(shadow.getUrl()), shadow.getName());
+    }
+
+    /**
+     * Новое поколение обойдено: его индекс строится заранее, строки site меняются URL в одной
+     * транзакции, после чего индекс нового поколения одной записью занимает место старого.
+     * live == null — сайт индексируется впервые.
+     */
+    public void switchOver(Site shadow, Site live) {
+        searchIndex.stage(shadow);
+        String liveUrl = liveUrl(shadow.getUrl());
+        transactionTemplate.executeWithoutResult(status -> {
+            if (live != null) {
+                String retiredUrl = liveUrl + GENERATION_MARK + live.getId() + "-retired";
+                siteRepository.updateUrl(live.getId(), retiredUrl);
+                live.setUrl(retiredUrl);
+                live.updateStatus(IndexingStatus.FAILED, "Заменён новым поколением индекса");
+                siteRepository.save(live);
+            }
+            shadow.setUrl(liveUrl);
+            shadow.updateStatus(IndexingStatus.INDEXED, null);
+            siteRepository.save(shadow);
+        });
+        searchIndex.promote(shadow.getId(), live == null ? null : live.getId());
+        statisticsCounters.statusChanged(shadow);
+        logger.info("Сайт {} переключён на новое поколение (site_id {}).", liveUrl, shadow.getId());
+        if (live != null) {
+            cleaner.schedule(() -> delete(live), RETIRE_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Обход нового поколения не завершён. Если сайт уже был в поиске, старое поколение остаётся
+     * со своим статусом, а новое удаляется — или ждёт продолжения, если у него есть контрольная точка;
+     * иначе недообойдённый сайт остаётся со статусом FAILED.
+     */
+    public void abandon(Site shadow, Site live, String error) {
+        String liveUrl = liveUrl(shadow.getUrl());
+        if (live == null) {
+            shadow.setUrl(liveUrl);
+            shadow.updateStatus(IndexingStatus.FAILED, error);
+            siteRepository.save(shadow);
+            statisticsCounters.statusChanged(shadow);
+            logger.info("Сайт {} изменил статус на FAILED: {}", liveUrl, error);
+            return;
+        }
+        shadow.updateStatus(IndexingStatus.FAILED, error);
+        siteRepository.save(shadow);
+        boolean resumable = Objects.equals(crawlCheckpoints.siteId(liveUrl), shadow.getId());
+        live.setLastError("Переиндексация не завершена: " + error);
+        siteRepository.save(live);
+        statisticsCounters.restore(live, pageJdbcRepository.countBySiteId(live.getId()),
+                lemmaJdbcRepository.countBySiteId(live.getId()));
+        logger.warn("Переиндексация сайта {} не завершена ({}), поиск остаётся на прежнем поколении.", liveUrl, error);
+        if (resumable) {
+            // Новое поколение ждёт продолжения обхода (startIndexing?resume=true)
+            logger.info("Обход нового поколения сайта {} можно продолжить с контрольной точки.", liveUrl);
+        } else {
+            discard(shadow);
+        }
+    }
+
+    // Удаляет в фоне строку поколения, которое не станет живым
+    public void discard(Site generation) {
+        cleaner.execute(() -> delete(generation));
+    }
+
+    private void delete(Site site) {
+        try {
+            // Пакетные DELETE без загрузки сущностей; сначала строки, ссылающиеся на страницы и леммы сайта
+            long started = System.currentTimeMillis();
+            int indexDeleted = indexJdbcRepository.deleteBySiteId(site.getId());
+            int pagesDeleted = pageJdbcRepository.deleteBySiteId(site.getId());
+            int lemmasDeleted = lemmaJdbcRepository.deleteBySiteId(site.getId());
+            siteRepository.deleteSiteById(site.getId());
+            searchIndex.remove(site.getId());
+            logger.info("Поколение {} удалено за {} мс: {} страниц, {} лемм, {} строк индекса.", site.getUrl(),
+                    System.currentTimeMillis() - started, pagesDeleted, lemmasDeleted, indexDeleted);
+        } catch (Exception e) {
+            // Строка останется с меткой поколения и будет удалена при следующем запуске
+            logger.error("Не удалось удалить поколение {}: {}", site.getUrl(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package searchengine.services;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сниппет по позициям лемм, записанным при индексации: морфология на странице не запускается.
+ * Окно выбирается по смещениям вхождений лемм запроса — в него должно попасть как можно больше
+ * разных лемм, при равенстве больше вхождений, затем окно раньше в тексте.
+ * Позиций у леммы не больше LemmaService.MAX_POSITIONS_PER_LEMMA, поэтому выбор окна
+ * от длины страницы не зависит, а из текста нужно только начало до конца окна.
+ */
+public final class SnippetBuilder {
+    private static final String ELLIPSIS = "...";
+
+    private final int length;
+    // Вхождения лемм запроса по возрастанию: смещение в старших 32 битах, номер леммы в младших
+    private final long[] occurrences;
+    private final int windowStart;
+
+    public SnippetBuilder(Map<String, int[]> positions, int length) {
+        this.length = length;
+        List<int[]> lists = List.copyOf(positions.values());
+        int total = 0;
+        for (int[] list : lists) {
+            total += list.length;
+        }
+        occurrences = new long[total];
+        int k = 0;
+        for (int lemma = 0; lemma < lists.size(); lemma++) {
+            for (int position : lists.get(lemma)) {
+                occurrences[k++] = ((long) position << 32) | lemma;
+            }
+        }
+        Arrays.sort(occurrences);
+        windowStart = bestWindow(lists.size());
+    }
+
+    // Сколько символов текста с начала страницы нужно, чтобы построить сниппет
+    public int requiredChars() {
+        return (occurrences.length == 0 ? 0 : windowStart) + length + 1;
+    }
+
+    // text — начало текста страницы не короче requiredChars() или весь текст
+    public String build(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        if (occurrences.length == 0 || windowStart >= text.length()) {
+            return HtmlUtils.htmlEscape(text.substring(0, Math.min(text.length(), length)));
+        }
+
+        // Перед первым совпадением оставляем треть окна контекста, начало — на границе слова
+        int start = Math.max(0, windowStart - length / 3);
+        while (start > 0 && start > windowStart - length / 2 && !Character.isWhitespace(text.charAt(start - 1))) {
+            start--;
+        }
+        int end = Math.min(text.length(), start + length);
+
+        StringBuilder snippet = new StringBuilder(length + 32);
+        if (start > 0) {
+            snippet.append(ELLIPSIS);
+        }
+        int last = start;
+        for (long occurrence : occurrences) {
+            int position = (int) (occurrence >>> 32);
+            if (position < last) {
+                continue;
+            }
+            if (position >= end) {
+                break;
+            }
+            int wordEnd = position;
+            while (wordEnd < text.length() && Character.isLetter(text.charAt(wordEnd))) {
+                wordEnd++;
+            }
+            if (wordEnd > end) {
+                // Слово обрезано краем окна — не выделяем половину слова
+                break;
+            }
+            snippet.append(HtmlUtils.htmlEscape(text.substring(last, position)))
+                    .append("<b>").append(HtmlUtils.htmlEscape(text.substring(position, wordEnd))).append("</b>");
+            last = wordEnd;
+        }
+        snippet.append(HtmlUtils.htmlEscape(text.substring(last, end)));
+        if (end < text.length()) {
+            snippet.append(ELLIPSIS);
+        }
+        return snippet.toString();
+    }
+
+    // Скользящее окно по вхождениям: совпадения должны уместиться в две трети длины сниппета,
+    // остальное — контекст вокруг них
+    private int bestWindow(int lemmaCount) {
+        if (occurrences.length == 0) {
+            return 0;
+        }
+        int span = Math.max(1, length * 2 / 3);
+        int[] inWindow = new int[lemmaCount];
+        int distinct = 0;
+        int bestDistinct = 0;
+        int bestCount = 0;
+        int best = 0;
+        int right = 0;
+        for (int left = 0; left < occurrences.length; left++) {
+            int leftPosition = (int) (occurrences[left] >>> 32);
+            while (right < occurrences.length && (int) (occurrences[right] >>> 32) - leftPosition < span) {
+                if (inWindow[(int) occurrences[right]]++ == 0) {
+                    distinct++;
+                }
+                right++;
+            }
+            int count = right - left;
+            if (distinct > bestDistinct || (distinct == bestDistinct && count > bestCount)) {
+                bestDistinct = distinct;
+                bestCount = count;
+                best = leftPosition;
+            }
+            if (--inWindow[(int) occurrences[left]] == 0) {
+                distinct--;
+            }
+        }
+        return best;
+    }
+}
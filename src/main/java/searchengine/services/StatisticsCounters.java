@@ -0,0 +1,121 @@
+package searchengine.services;
+
+import org.springframework.stereotype.Component;
+import searchengine.model.IndexingStatus;
+import searchengine.model.Site;
+
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Счётчики статистики сайтов в памяти: число страниц и лемм, статус и последняя ошибка.
+ * Обход и индексация обновляют их по ходу работы, поэтому /api/statistics не обращается к базе;
+ * StatisticsReconciler периодически сверяет их с таблицами.
+ * Ключ — URL сайта из конфигурации: при переиндексации строка site создаётся заново,
+ * а строки поколений сайта (SiteGenerations) считаются под URL живого сайта.
+ */
+@Component
+public class StatisticsCounters {
+
+    private final Map<String, SiteCounters> sites = new ConcurrentHashMap<>();
+
+    // Счётчики сайта или null, если сайт ещё не индексировался
+    public SiteCounters get(String siteUrl) {
+        return sites.get(siteUrl);
+    }
+
+    // Новый обход сайта: счётчики обнуляются и привязываются к новой строке site
+    public SiteCounters startIndexing(Site site) {
+        SiteCounters counters = sites.computeIfAbsent(key(site), url -> new SiteCounters());
+        counters.reset(site);
+        return counters;
+    }
+
+    // Повторный обход без очистки таблиц: числа продолжают накапливаться с текущих значений
+    public SiteCounters continueIndexing(Site site) {
+        statusChanged(site);
+        return sites.get(key(site));
+    }
+
+    public void statusChanged(Site site) {
+        SiteCounters counters = sites.computeIfAbsent(key(site), url -> new SiteCounters());
+        synchronized (counters) {
+            counters.status = SiteStatus.of(site);
+        }
+    }
+
+    /**
+     * Записывает числа из базы, если сайт не индексируется прямо сейчас и его строка site
+     * не сменилась, пока шёл подсчёт: во время обхода точнее живые счётчики.
+     */
+    public void reconcile(Site site, int pages, int lemmas) {
+        SiteCounters counters = sites.computeIfAbsent(key(site), url -> new SiteCounters());
+        synchronized (counters) {
+            SiteStatus current = counters.status;
+            if (current != null && (current.siteId() != site.getId() || current.status() == IndexingStatus.INDEXING)) {
+                return;
+            }
+            counters.pages.set(pages);
+            counters.lemmas.set(lemmas);
+            counters.status = SiteStatus.of(site);
+        }
+    }
+
+    // Обход нового поколения отменён: счётчики возвращаются к поколению, которое осталось в поиске
+    public void restore(Site site, int pages, int lemmas) {
+        SiteCounters counters = sites.computeIfAbsent(key(site), url -> new SiteCounters());
+        synchronized (counters) {
+            counters.pages.set(pages);
+            counters.lemmas.set(lemmas);
+            counters.status = SiteStatus.of(site);
+        }
+    }
+
+    private static String key(Site site) {
+        return SiteGenerations.liveUrl(site.getUrl());
+    }
+
+    public static final class SiteCounters {
+        private final AtomicInteger pages = new AtomicInteger();
+        private final AtomicInteger lemmas = new AtomicInteger();
+        private volatile SiteStatus status;
+
+        private synchronized void reset(Site site) {
+            pages.set(0);
+            lemmas.set(0);
+            status = SiteStatus.of(site);
+        }
+
+        public void pagesAdded(int count) {
+            pages.addAndGet(count);
+        }
+
+        public void lemmasAdded(int count) {
+            lemmas.addAndGet(count);
+        }
+
+        public int getPages() {
+            return pages.get();
+        }
+
+        public int getLemmas() {
+            return lemmas.get();
+        }
+
+        public SiteStatus getStatus() {
+            return status;
+        }
+    }
+
+    // Снимок статуса, меняется одной записью ссылки
+    public record SiteStatus(int siteId, IndexingStatus status, long statusTime, String lastError) {
+
+        static SiteStatus of(Site site) {
+            long statusTime = site.getStatusTime() == null ? System.currentTimeMillis()
+                    : site.getStatusTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            return new SiteStatus(site.getId(), site.getStatus(), statusTime, site.getLastError());
+        }
+    }
+}
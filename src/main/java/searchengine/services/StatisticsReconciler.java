@@ -0,0 +1,81 @@
+package searchengine.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import searchengine.model.IndexingStatus;
+import searchengine.model.Site;
+import searchengine.repository.LemmaJdbcRepository;
+import searchengine.repository.PageJdbcRepository;
+import searchengine.repository.SiteRepository;
+
+/**
+ * Сверка счётчиков статистики с базой: при запуске приложения и затем по расписанию.
+ * Считаются только сайты, которые сейчас не индексируются, каждый — по индексу site_id,
+ * так что во время обхода сверка базу не нагружает.
+ * Строки со статусом INDEXING, оставшиеся от остановленного приложения, при запуске
+ * помечаются FAILED и получают счётчики из базы.
+ */
+@Component
+public class StatisticsReconciler {
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsReconciler.class);
+
+    private final SiteRepository siteRepository;
+    private final PageJdbcRepository pageJdbcRepository;
+    private final LemmaJdbcRepository lemmaJdbcRepository;
+    private final StatisticsCounters counters;
+
+    public StatisticsReconciler(SiteRepository siteRepository, PageJdbcRepository pageJdbcRepository,
+                                LemmaJdbcRepository lemmaJdbcRepository, StatisticsCounters counters) {
+        this.siteRepository = siteRepository;
+        this.pageJdbcRepository = pageJdbcRepository;
+        this.lemmaJdbcRepository = lemmaJdbcRepository;
+        this.counters = counters;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            for (Site site : siteRepository.findAllByStatus(IndexingStatus.INDEXING)) {
+                // Строки поколений разбирает SiteGenerations, свои обходы этот процесс ведёт сам
+                if (SiteGenerations.isGeneration(site.getUrl()) || isCrawledHere(site)) {
+                    continue;
+                }
+                site.updateStatus(IndexingStatus.FAILED, "Индексация прервана остановкой приложения");
+                siteRepository.save(site);
+                logger.info("Сайт {} остался в статусе INDEXING после остановки приложения, статус изменён на FAILED.",
+                        site.getUrl());
+            }
+        } catch (Exception e) {
+            logger.warn("Не удалось сбросить статус прерванной индексации: {}", e.getMessage());
+        }
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${statistics-settings.reconcile-interval:PT5M}",
+            initialDelayString = "${statistics-settings.reconcile-interval:PT5M}")
+    public void reconcile() {
+        try {
+            for (Site site : siteRepository.findAll()) {
+                // Строки поколений либо ещё обходятся, либо ждут удаления — считается только живой сайт
+                if (site.isIndexing() || SiteGenerations.isGeneration(site.getUrl())) {
+                    continue;
+                }
+                counters.reconcile(site, pageJdbcRepository.countBySiteId(site.getId()),
+                        lemmaJdbcRepository.countBySiteId(site.getId()));
+            }
+        } catch (Exception e) {
+            logger.warn("Не удалось сверить статистику с базой: {}", e.getMessage());
+        }
+    }
+
+    // Статус INDEXING в счётчиках ставит только обход, запущенный этим процессом
+    private boolean isCrawledHere(Site site) {
+        StatisticsCounters.SiteCounters siteCounters = counters.get(SiteGenerations.liveUrl(site.getUrl()));
+        return siteCounters != null && siteCounters.getStatus() != null
+                && siteCounters.getStatus().status() == IndexingStatus.INDEXING;
+    }
+}
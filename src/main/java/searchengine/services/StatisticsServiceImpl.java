@@ -11,45 +11,45 @@ import searchengine.dto.statistics.TotalStatistics;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
+/**
+ * Статистика из счётчиков в памяти (StatisticsCounters): опрос раз в секунду не доходит до базы.
+ */
 @Service
 @RequiredArgsConstructor
 public class StatisticsServiceImpl implements StatisticsService {
 
-    private final Random random = new Random();
     private final SitesList sites;
+    private final StatisticsCounters counters;
+    private final IndexingService indexingService;
 
     @Override
     public StatisticsResponse getStatistics() {
-        String[] statuses = { "INDEXED", "FAILED", "INDEXING" };
-        String[] errors = {
-                "Ошибка индексации: главная страница сайта не доступна",
-                "Ошибка индексации: сайт не доступен",
-                ""
-        };
-
         TotalStatistics total = new TotalStatistics();
         total.setSites(sites.getSites().size());
-        total.setIndexing(true);
+        total.setIndexing(indexingService.isIndexingInProgress());
 
         List<DetailedStatisticsItem> detailed = new ArrayList<>();
-        List<Site> sitesList = sites.getSites();
-        for(int i = 0; i < sitesList.size(); i++) {
-            Site site = sitesList.get(i);
+        for (Site site : sites.getSites()) {
             DetailedStatisticsItem item = new DetailedStatisticsItem();
             item.setName(site.getName());
             item.setUrl(site.getUrl());
-            int pages = random.nextInt(1_000);
-            int lemmas = pages * random.nextInt(1_000);
-            item.setPages(pages);
-            item.setLemmas(lemmas);
-            item.setStatus(statuses[i % 3]);
-            item.setError(errors[i % 3]);
-            item.setStatusTime(System.currentTimeMillis() -
-                    (random.nextInt(10_000)));
-            total.setPages(total.getPages() + pages);
-            total.setLemmas(total.getLemmas() + lemmas);
+            StatisticsCounters.SiteCounters siteCounters = counters.get(site.getUrl());
+            StatisticsCounters.SiteStatus status = siteCounters == null ? null : siteCounters.getStatus();
+            if (status == null) {
+                // Сайт ещё не индексировался
+                item.setStatus("");
+                item.setError("");
+                item.setStatusTime(System.currentTimeMillis());
+            } else {
+                item.setPages(siteCounters.getPages());
+                item.setLemmas(siteCounters.getLemmas());
+                item.setStatus(status.status().name());
+                item.setError(status.lastError() == null ? "" : status.lastError());
+                item.setStatusTime(status.statusTime());
+            }
+            total.setPages(total.getPages() + item.getPages());
+            total.setLemmas(total.getLemmas() + item.getLemmas());
             detailed.add(item);
         }
 
@@ -0,0 +1,62 @@
+package searchengine.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Потокобезопасный фильтр Блума поверх готового 64-битного хеша.
+ * Биты выставляются атомарно, блокировок нет.
+ */
+public class BloomFilter {
+    private static final int HASH_FUNCTIONS = 7; // ~1% ложных срабатываний при 10 битах на элемент
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+
+    public BloomFilter(long memoryBytes) {
+        int words = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, memoryBytes / Long.BYTES));
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * Long.SIZE;
+    }
+
+    // Добавляет хеш; возвращает true, если его точно не было раньше
+    public boolean put(long hash) {
+        long h1 = hash;
+        long h2 = UrlHash.mix(hash) | 1;
+        boolean changed = false;
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long previous = bits.getAndAccumulate(word, mask, (current, m) -> current | m);
+            if ((previous & mask) == 0) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // Копия битов для контрольной точки обхода
+    public long[] words() {
+        long[] words = new long[bits.length()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = bits.get(i);
+        }
+        return words;
+    }
+
+    // Добавляет биты копии; фильтр другого размера не совместим и пропускается
+    public boolean merge(long[] words) {
+        if (words.length != bits.length()) {
+            return false;
+        }
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            bits.getAndAccumulate(i, word, (current, w) -> current | w);
+        }
+        return true;
+    }
+
+    public long memoryBytes() {
+        return (long) bits.length() * Long.BYTES;
+    }
+}
@@ -0,0 +1,80 @@
+package searchengine.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Сжатие тел страниц для столбца content_compressed (DEFLATE в формате zlib, UTF-8).
+ * HTML сжимается в 5–10 раз: в нём много повторяющейся разметки.
+ */
+public final class ContentCodec {
+    private static final int BUFFER_SIZE = 8192;
+
+    private ContentCodec() {
+    }
+
+    public static byte[] compress(String content) {
+        byte[] input = content.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                output.write(buffer, 0, length);
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // Начало текста длиной не меньше maxChars символов (или весь текст, если он короче):
+    // распаковка останавливается, как только нужная часть получена
+    public static String decompress(byte[] compressed, int maxChars) {
+        StringBuilder text = new StringBuilder(Math.min(maxChars, BUFFER_SIZE));
+        char[] buffer = new char[BUFFER_SIZE];
+        try (Reader reader = new InputStreamReader(new InflaterInputStream(
+                new ByteArrayInputStream(compressed)), StandardCharsets.UTF_8)) {
+            int read;
+            while (text.length() < maxChars
+                    && (read = reader.read(buffer, 0, Math.min(buffer.length, maxChars - text.length()))) != -1) {
+                text.append(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Сжатое содержимое страницы повреждено", e);
+        }
+        return text.toString();
+    }
+
+    public static String decompress(byte[] compressed) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream output = new ByteArrayOutputStream(compressed.length * 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Сжатое содержимое страницы обрывается");
+                }
+                output.write(buffer, 0, length);
+            }
+            return output.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Сжатое содержимое страницы повреждено", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package searchengine.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Потоковый разбор HTML за один проход: ссылки a[href], заголовок и видимый текст.
+ * Текст подаётся кусками по мере чтения ответа, дерево документа не строится,
+ * поэтому память сверх самого текста не зависит от размера страницы.
+ * Содержимое script, style, noscript и template в текст не попадает, сущности декодируются.
+ */
+public class HtmlScanner {
+    private static final int MAX_NAME_LENGTH = 32;
+    private static final int MAX_ENTITY_LENGTH = 10;
+    // Ссылки длиннее не сохраняются: такие URL почти всегда служебные
+    private static final int MAX_HREF_LENGTH = 2048;
+
+    private static final Set<String> RAW_TEXT_TAGS = Set.of("script", "style", "noscript", "template");
+    // Строчные элементы не разделяют слова: "Hel<b>lo</b>" — одно слово, как у Jsoup
+    private static final Set<String> INLINE_TAGS = Set.of("a", "abbr", "b", "bdi", "bdo", "cite", "code", "data",
+            "dfn", "em", "font", "i", "kbd", "mark", "q", "s", "samp", "small", "span", "strong", "sub", "sup",
+            "time", "u", "var");
+
+    private enum State {
+        TEXT, TAG_OPEN, TAG_NAME, ATTRIBUTES, ATTRIBUTE_NAME, AFTER_ATTRIBUTE_NAME, BEFORE_VALUE,
+        QUOTED_VALUE, UNQUOTED_VALUE, MARKUP_DECLARATION, COMMENT, BOGUS, RAW_TEXT
+    }
+
+    private final StringBuilder text = new StringBuilder();
+    private final StringBuilder title = new StringBuilder();
+    private final List<String> links = new ArrayList<>();
+
+    private State state = State.TEXT;
+    private final StringBuilder tagName = new StringBuilder();
+    private boolean endTag;
+    private final StringBuilder attributeName = new StringBuilder();
+    private final StringBuilder attributeValue = new StringBuilder();
+    private boolean attributeOverflow;
+    private char quote;
+    private String href;
+    private final StringBuilder entity = new StringBuilder();
+    private boolean inEntity;
+    private boolean inTitle;
+    private boolean spacePending;
+    private int dashes;
+    private String rawTextTag;
+    private int rawTextMatched;
+
+    public void feed(CharSequence chars) {
+        for (int i = 0; i < chars.length(); i++) {
+            accept(chars.charAt(i));
+        }
+    }
+
+    public void feed(char[] chars, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            accept(chars[i]);
+        }
+    }
+
+    // Ссылки в порядке появления, как в атрибуте href (без разрешения относительных)
+    public List<String> links() {
+        return links;
+    }
+
+    public String title() {
+        return title.toString().trim();
+    }
+
+    // Видимый текст: пробельные последовательности схлопнуты в один пробел
+    public String text() {
+        flushEntity();
+        return text.toString();
+    }
+
+    private void accept(char c) {
+        switch (state) {
+            case TEXT -> {
+                if (c == '<') {
+                    flushEntity();
+                    state = State.TAG_OPEN;
+                } else {
+                    acceptText(c);
+                }
+            }
+            case TAG_OPEN -> {
+                tagName.setLength(0);
+                href = null;
+                if (isLetter(c)) {
+                    endTag = false;
+                    tagName.append(Character.toLowerCase(c));
+                    state = State.TAG_NAME;
+                } else if (c == '/') {
+                    endTag = true;
+                    state = State.TAG_NAME;
+                } else if (c == '!') {
+                    dashes = 0;
+                    state = State.MARKUP_DECLARATION;
+                } else if (c == '?') {
+                    state = State.BOGUS;
+                } else {
+                    // Одиночный '<' — обычный текст
+                    state = State.TEXT;
+                    acceptText('<');
+                    accept(c);
+                }
+            }
+            case TAG_NAME -> {
+                if (c == '>') {
+                    finishTag();
+                } else if (Character.isWhitespace(c) || c == '/') {
+                    state = State.ATTRIBUTES;
+                } else if (tagName.length() < MAX_NAME_LENGTH) {
+                    tagName.append(Character.toLowerCase(c));
+                }
+            }
+            case ATTRIBUTES -> {
+                if (c == '>') {
+                    finishTag();
+                } else if (!Character.isWhitespace(c) && c != '/') {
+                    startAttribute(c);
+                }
+            }
+            case ATTRIBUTE_NAME -> {
+                if (c == '=') {
+                    state = State.BEFORE_VALUE;
+                } else if (c == '>') {
+                    finishAttribute();
+                    finishTag();
+                } else if (Character.isWhitespace(c)) {
+                    state = State.AFTER_ATTRIBUTE_NAME;
+                } else if (c == '/') {
+                    finishAttribute();
+                    state = State.ATTRIBUTES;
+                } else if (attributeName.length() < MAX_NAME_LENGTH) {
+                    attributeName.append(Character.toLowerCase(c));
+                }
+            }
+            case AFTER_ATTRIBUTE_NAME -> {
+                if (c == '=') {
+                    state = State.BEFORE_VALUE;
+                } else if (c == '>') {
+                    finishAttribute();
+                    finishTag();
+                } else if (!Character.isWhitespace(c)) {
+                    finishAttribute();
+                    startAttribute(c);
+                }
+            }
+            case BEFORE_VALUE -> {
+                if (c == '"' || c == '\'') {
+                    quote = c;
+                    state = State.QUOTED_VALUE;
+                } else if (c == '>') {
+                    finishAttribute();
+                    finishTag();
+                } else if (!Character.isWhitespace(c)) {
+                    appendValue(c);
+                    state = State.UNQUOTED_VALUE;
+                }
+            }
+            case QUOTED_VALUE -> {
+                if (c == quote) {
+                    finishAttribute();
+                    state = State.ATTRIBUTES;
+                } else {
+                    appendValue(c);
+                }
+            }
+            case UNQUOTED_VALUE -> {
+                if (c == '>') {
+                    finishAttribute();
+                    finishTag();
+                } else if (Character.isWhitespace(c)) {
+                    finishAttribute();
+                    state = State.ATTRIBUTES;
+                } else {
+                    appendValue(c);
+                }
+            }
+            case MARKUP_DECLARATION -> {
+                // "<!--" открывает комментарий, остальное ("<!DOCTYPE ...>") пропускается до '>'
+                if (c == '-' && ++dashes == 2) {
+                    dashes = 0;
+                    state = State.COMMENT;
+                } else if (c == '>') {
+                    state = State.TEXT;
+                } else if (c != '-') {
+                    state = State.BOGUS;
+                }
+            }
+            case COMMENT -> {
+                if (c == '-') {
+                    dashes++;
+                } else if (c == '>' && dashes >= 2) {
+                    state = State.TEXT;
+                } else {
+                    dashes = 0;
+                }
+            }
+            case BOGUS -> {
+                if (c == '>') {
+                    state = State.TEXT;
+                }
+            }
+            case RAW_TEXT -> acceptRawText(c);
+        }
+    }
+
+    private void acceptText(char c) {
+        if (inEntity) {
+            if (c == ';') {
+                inEntity = false;
+                String decoded = decodeEntity(entity);
+                if (decoded == null) {
+                    appendText('&');
+                    appendAll(entity);
+                    appendText(';');
+                } else {
+                    appendAll(decoded);
+                }
+                return;
+            }
+            if ((isLetter(c) || Character.isDigit(c) || c == '#') && entity.length() < MAX_ENTITY_LENGTH) {
+                entity.append(c);
+                return;
+            }
+            flushEntity();
+        }
+        if (c == '&') {
+            inEntity = true;
+            entity.setLength(0);
+            return;
+        }
+        appendText(c);
+    }
+
+    // Незакрытая ';' сущность остаётся текстом как есть
+    private void flushEntity() {
+        if (inEntity) {
+            inEntity = false;
+            appendText('&');
+            appendAll(entity);
+        }
+    }
+
+    private void appendAll(CharSequence chars) {
+        for (int i = 0; i < chars.length(); i++) {
+            appendText(chars.charAt(i));
+        }
+    }
+
+    private void appendText(char c) {
+        if (Character.isWhitespace(c) || c == '\u00a0') {
+            spacePending = true;
+            return;
+        }
+        if (spacePending) {
+            if (!text.isEmpty()) {
+                text.append(' ');
+            }
+            if (inTitle && !title.isEmpty()) {
+                title.append(' ');
+            }
+            spacePending = false;
+        }
+        text.append(c);
+        if (inTitle) {
+            title.append(c);
+        }
+    }
+
+    private void startAttribute(char c) {
+        attributeName.setLength(0);
+        attributeName.append(Character.toLowerCase(c));
+        attributeValue.setLength(0);
+        attributeOverflow = false;
+        state = State.ATTRIBUTE_NAME;
+    }
+
+    private void appendValue(char c) {
+        if (attributeValue.length() < MAX_HREF_LENGTH) {
+            attributeValue.append(c);
+        } else {
+            attributeOverflow = true;
+        }
+    }
+
+    private void finishAttribute() {
+        if (!endTag && !attributeOverflow && href == null
+                && "a".contentEquals(tagName) && "href".contentEquals(attributeName)) {
+            href = decodeEntities(attributeValue).trim();
+        }
+        attributeName.setLength(0);
+        attributeValue.setLength(0);
+    }
+
+    private void finishTag() {
+        state = State.TEXT;
+        String name = tagName.toString();
+        if (!INLINE_TAGS.contains(name)) {
+            spacePending = true;
+        }
+        if (endTag) {
+            if (name.equals("title")) {
+                inTitle = false;
+            }
+            return;
+        }
+        if (href != null && !href.isEmpty()) {
+            links.add(href);
+        }
+        if (name.equals("title")) {
+            inTitle = true;
+        } else if (RAW_TEXT_TAGS.contains(name)) {
+            rawTextTag = name;
+            rawTextMatched = 0;
+            state = State.RAW_TEXT;
+        }
+    }
+
+    // Внутри script и style теги не разбираются: ждём только закрывающий тег
+    private void acceptRawText(char c) {
+        int patternLength = rawTextTag.length() + 2;
+        if (rawTextMatched == patternLength) {
+            if (c == '>' || c == '/' || Character.isWhitespace(c)) {
+                spacePending = true;
+                state = c == '>' ? State.TEXT : State.BOGUS;
+                return;
+            }
+            rawTextMatched = 0;
+        }
+        char expected = rawTextMatched == 0 ? '<' : rawTextMatched == 1 ? '/' : rawTextTag.charAt(rawTextMatched - 2);
+        if (Character.toLowerCase(c) == expected) {
+            rawTextMatched++;
+        } else {
+            rawTextMatched = c == '<' ? 1 : 0;
+        }
+    }
+
+    private static String decodeEntities(CharSequence value) {
+        StringBuilder decoded = new StringBuilder(value.length());
+        int i = 0;
+        while (i < value.length()) {
+            char c = value.charAt(i);
+            int end = c == '&' ? indexOf(value, ';', i + 1, i + 2 + MAX_ENTITY_LENGTH) : -1;
+            String replacement = end < 0 ? null : decodeEntity(value.subSequence(i + 1, end));
+            if (replacement == null) {
+                decoded.append(c);
+                i++;
+            } else {
+                decoded.append(replacement);
+                i = end + 1;
+            }
+        }
+        return decoded.toString();
+    }
+
+    private static int indexOf(CharSequence value, char c, int from, int limit) {
+        for (int i = from; i < Math.min(value.length(), limit); i++) {
+            if (value.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Именованные сущности, которые встречаются в тексте чаще всего, и числовые &#NNN; / &#xHH;
+    private static String decodeEntity(CharSequence name) {
+        if (name.length() > 1 && name.charAt(0) == '#') {
+            try {
+                boolean hex = name.charAt(1) == 'x' || name.charAt(1) == 'X';
+                int codePoint = Integer.parseInt(name.subSequence(hex ? 2 : 1, name.length()).toString(), hex ? 16 : 10);
+                return Character.isValidCodePoint(codePoint) ? Character.toString(codePoint) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return switch (name.toString().toLowerCase(Locale.ROOT)) {
+            case "amp" -> "&";
+            case "lt" -> "<";
+            case "gt" -> ">";
+            case "quot" -> "\"";
+            case "apos" -> "'";
+            case "nbsp" -> " ";
+            case "laquo" -> "«";
+            case "raquo" -> "»";
+            case "mdash" -> "—";
+            case "ndash" -> "–";
+            case "hellip" -> "…";
+            case "copy" -> "©";
+            default -> null;
+        };
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
@@ -0,0 +1,61 @@
+package searchengine.utils;
+
+import org.apache.lucene.morphology.LuceneMorphology;
+import org.apache.lucene.morphology.english.EnglishLuceneMorphology;
+import org.apache.lucene.morphology.russian.RussianLuceneMorphology;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
+/**
+ * Единственные на процесс экземпляры морфологических словарей.
+ * Каждый словарь занимает десятки мегабайт, поэтому загружается один раз, при первом обращении;
+ * LuceneMorphology после загрузки только читается и безопасна для общих потоков.
+ */
+public final class MorphologyProvider {
+
+    private MorphologyProvider() {
+    }
+
+    public static LuceneMorphology russian() {
+        return RussianHolder.INSTANCE;
+    }
+
+    public static LuceneMorphology english() {
+        return EnglishHolder.INSTANCE;
+    }
+
+    // "ru" или "en"
+    public static LuceneMorphology forLanguage(String language) {
+        return switch (language.toLowerCase(Locale.ROOT)) {
+            case "ru" -> russian();
+            case "en" -> english();
+            default -> throw new IllegalArgumentException("Неизвестный язык: " + language);
+        };
+    }
+
+    private static final class RussianHolder {
+        private static final LuceneMorphology INSTANCE;
+
+        static {
+            try {
+                INSTANCE = new RussianLuceneMorphology();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось загрузить русский словарь морфологии", e);
+            }
+        }
+    }
+
+    private static final class EnglishHolder {
+        private static final LuceneMorphology INSTANCE;
+
+        static {
+            try {
+                INSTANCE = new EnglishLuceneMorphology();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось загрузить английский словарь морфологии", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package searchengine.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Позиции слова в тексте страницы для столбца index.positions:
+ * возрастающие смещения хранятся разностями с предыдущим в формате varint (7 бит на байт).
+ * Соседние вхождения обычно ближе 128 символов, поэтому на позицию уходит один-два байта.
+ */
+public final class PositionCodec {
+
+    private PositionCodec() {
+    }
+
+    public static byte[] encode(int[] positions) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(positions.length * 2);
+        int previous = 0;
+        for (int position : positions) {
+            int delta = position - previous;
+            previous = position;
+            while ((delta & ~0x7f) != 0) {
+                output.write((delta & 0x7f) | 0x80);
+                delta >>>= 7;
+            }
+            output.write(delta);
+        }
+        return output.toByteArray();
+    }
+
+    public static int[] decode(byte[] encoded) {
+        int[] positions = new int[encoded.length];
+        int count = 0;
+        int previous = 0;
+        int i = 0;
+        while (i < encoded.length) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = encoded[i++];
+                delta |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0 && i < encoded.length);
+            previous += delta;
+            positions[count++] = previous;
+        }
+        return Arrays.copyOf(positions, count);
+    }
+}
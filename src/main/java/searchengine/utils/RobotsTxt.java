@@ -0,0 +1,186 @@
+package searchengine.utils;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Правила robots.txt для одного обходчика (RFC 9309). Берутся группы, имя в User-Agent
+ * которых без учёта регистра совпадает с именем обходчика, а если таких нет — группы «*»;
+ * правила нескольких подходящих групп объединяются. Для пути применяется правило с самым
+ * длинным совпавшим шаблоном (поддерживаются * и $), при равной длине Allow сильнее Disallow.
+ * Строки Sitemap относятся ко всему файлу, а не к группе.
+ */
+public final class RobotsTxt {
+    private static final RobotsTxt ALLOW_ALL = new RobotsTxt(List.of(), null, List.of());
+
+    private final List<Rule> rules;
+    private final Duration crawlDelay;
+    private final List<String> sitemaps;
+
+    private RobotsTxt(List<Rule> rules, Duration crawlDelay, List<String> sitemaps) {
+        this.rules = rules;
+        this.crawlDelay = crawlDelay;
+        this.sitemaps = sitemaps;
+    }
+
+    // robots.txt нет или он не загрузился — ограничений нет
+    public static RobotsTxt allowAll() {
+        return ALLOW_ALL;
+    }
+
+    // productToken — имя обходчика без версии и комментариев, например "SearchEngineBot"
+    public static RobotsTxt parse(String content, String productToken) {
+        String agent = productToken.toLowerCase(Locale.ROOT);
+        List<String> sitemaps = new ArrayList<>();
+        List<Group> groups = new ArrayList<>();
+        Group current = null;
+        boolean inAgentLines = false;
+
+        for (String rawLine : content.split("\r\n|\r|\n")) {
+            int comment = rawLine.indexOf('#');
+            String line = (comment >= 0 ? rawLine.substring(0, comment) : rawLine).trim();
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String field = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            switch (field) {
+                case "user-agent" -> {
+                    // Несколько строк User-Agent подряд открывают одну группу
+                    if (!inAgentLines) {
+                        current = new Group();
+                        groups.add(current);
+                    }
+                    current.agents.add(value.toLowerCase(Locale.ROOT));
+                    inAgentLines = true;
+                }
+                case "allow", "disallow" -> {
+                    inAgentLines = false;
+                    // Пустой Disallow ничего не запрещает
+                    if (current != null && !value.isEmpty()) {
+                        current.rules.add(new Rule(value, field.equals("allow")));
+                    }
+                }
+                case "crawl-delay" -> {
+                    inAgentLines = false;
+                    if (current != null) {
+                        current.crawlDelay = parseDelay(value);
+                    }
+                }
+                case "sitemap" -> {
+                    if (!value.isEmpty()) {
+                        sitemaps.add(value);
+                    }
+                }
+                default -> inAgentLines = false;
+            }
+        }
+
+        List<Group> selected = matching(groups, agent);
+        if (selected.isEmpty()) {
+            selected = matching(groups, "*");
+        }
+        List<Rule> rules = new ArrayList<>();
+        Duration crawlDelay = null;
+        for (Group group : selected) {
+            rules.addAll(group.rules);
+            if (crawlDelay == null) {
+                crawlDelay = group.crawlDelay;
+            }
+        }
+        return new RobotsTxt(List.copyOf(rules), crawlDelay, List.copyOf(sitemaps));
+    }
+
+    private static List<Group> matching(List<Group> groups, String agent) {
+        List<Group> matching = new ArrayList<>();
+        for (Group group : groups) {
+            if (group.agents.contains(agent)) {
+                matching.add(group);
+            }
+        }
+        return matching;
+    }
+
+    // path — путь с запросом, как в URL: /catalog/?page=2
+    public boolean isAllowed(String path) {
+        Rule best = null;
+        for (Rule rule : rules) {
+            if (rule.matches(path) && (best == null || rule.pattern.length() > best.pattern.length()
+                    || (rule.pattern.length() == best.pattern.length() && rule.allow))) {
+                best = rule;
+            }
+        }
+        return best == null || best.allow;
+    }
+
+    public boolean isAllowedUrl(String url) {
+        if (rules.isEmpty()) {
+            return true;
+        }
+        try {
+            URI uri = URI.create(url);
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            return isAllowed(uri.getRawQuery() == null ? path : path + "?" + uri.getRawQuery());
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    // Пауза между запросами, которую просит сайт, или null
+    public Duration getCrawlDelay() {
+        return crawlDelay;
+    }
+
+    public List<String> getSitemaps() {
+        return sitemaps;
+    }
+
+    private static Duration parseDelay(String value) {
+        try {
+            double seconds = Double.parseDouble(value);
+            return seconds > 0 ? Duration.ofMillis((long) (seconds * 1000)) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static final class Group {
+        private final List<String> agents = new ArrayList<>();
+        private final List<Rule> rules = new ArrayList<>();
+        private Duration crawlDelay;
+    }
+
+    private record Rule(String pattern, boolean allow) {
+
+        boolean matches(String path) {
+            boolean anchored = pattern.endsWith("$");
+            String body = anchored ? pattern.substring(0, pattern.length() - 1) : pattern;
+            return matches(body, 0, path, 0, anchored);
+        }
+
+        // Сопоставление с * без регулярных выражений: шаблоны короткие, звёздочек в них мало
+        private static boolean matches(String pattern, int p, String path, int i, boolean anchored) {
+            while (p < pattern.length()) {
+                char c = pattern.charAt(p);
+                if (c == '*') {
+                    for (int k = i; k <= path.length(); k++) {
+                        if (matches(pattern, p + 1, path, k, anchored)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                if (i >= path.length() || path.charAt(i) != c) {
+                    return false;
+                }
+                p++;
+                i++;
+            }
+            return !anchored || i == path.length();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package searchengine.utils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Потоковый разбор sitemap.xml через StAX: документ не строится в памяти, поэтому файл
+ * на 50 тысяч адресов читается с постоянным расходом памяти. Файл в gzip распознаётся
+ * по сигнатуре. Из urlset берутся адреса страниц, из sitemapindex — адреса вложенных карт.
+ * DTD и внешние сущности отключены.
+ */
+public final class SitemapReader {
+    // Предел протокола sitemaps.org для распакованного файла
+    public static final int MAX_UNCOMPRESSED_BYTES = 50 * 1024 * 1024;
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private SitemapReader() {
+    }
+
+    /**
+     * Передаёт адреса страниц в pages, адреса вложенных карт — в sitemaps.
+     * Возвращает число адресов, переданных в pages; чтение останавливается после maxUrls из них.
+     */
+    public static int read(InputStream body, int maxUrls, Consumer<String> pages,
+                           Consumer<String> sitemaps) throws IOException {
+        InputStream in = new LimitedInputStream(decompress(body), MAX_UNCOMPRESSED_BYTES);
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(in);
+            boolean index = false;
+            int count = 0;
+            while (reader.hasNext() && count < maxUrls) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+                if (name.equals("sitemapindex")) {
+                    index = true;
+                } else if (name.equals("loc")) {
+                    String loc = reader.getElementText().trim();
+                    if (loc.isEmpty()) {
+                        continue;
+                    }
+                    // Вложенные карты в лимит адресов не входят: их число ограничивает вызывающий
+                    if (index) {
+                        sitemaps.accept(loc);
+                    } else {
+                        pages.accept(loc);
+                        count++;
+                    }
+                }
+            }
+            return count;
+        } catch (XMLStreamException e) {
+            throw new IOException("Некорректный sitemap: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // Поток ответа закрывает вызывающий
+                }
+            }
+        }
+    }
+
+    private static InputStream decompress(InputStream body) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(body);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        return first == 0x1f && second == 0x8b ? new GZIPInputStream(buffered) : buffered;
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        return factory;
+    }
+
+    // Обрывает чтение на пределе: распакованный файл не может занять больше limit байт
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                throw new IOException("sitemap больше " + MAX_UNCOMPRESSED_BYTES / (1024 * 1024) + " МБ");
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                throw new IOException("sitemap больше " + MAX_UNCOMPRESSED_BYTES / (1024 * 1024) + " МБ");
+            }
+            int read = super.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+}
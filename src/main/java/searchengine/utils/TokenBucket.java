@@ -0,0 +1,53 @@
+package searchengine.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ограничитель частоты запросов «ведро с токенами».
+ * Токены копятся со скоростью permitsPerSecond, но не больше burst.
+ * Если токенов нет, вызывающий поток получает резерв в долг и спит
+ * ровно до момента его появления, так что запросы встают в очередь по времени.
+ */
+public class TokenBucket {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final double permitsPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    // permitsPerSecond <= 0 означает отсутствие ограничения
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, burst);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    // Забирает один токен и возвращает, сколько наносекунд нужно подождать до его появления
+    public long reserve() {
+        if (permitsPerNano <= 0) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+            lastRefill = now;
+            tokens -= 1;
+            if (tokens >= 0) {
+                return 0;
+            }
+            return (long) Math.ceil(-tokens / permitsPerNano);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
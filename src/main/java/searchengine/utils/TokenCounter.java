@@ -0,0 +1,147 @@
+package searchengine.utils;
+
+import java.util.Arrays;
+
+/**
+ * Счётчик слов на примитивных массивах: открытая адресация по хешу слова,
+ * символы каждого нового слова копируются в общий массив. Повторное слово не создаёт объектов,
+ * строки появляются только при обходе — по одной на уникальное слово.
+ * Если задан maxPositions, для каждого слова запоминаются смещения первых его вхождений.
+ */
+public final class TokenCounter {
+
+    @FunctionalInterface
+    public interface WordCountConsumer {
+        void accept(String word, int count);
+    }
+
+    @FunctionalInterface
+    public interface WordPositionsConsumer {
+        // positions — смещения первых вхождений слова по возрастанию, не больше maxPositions
+        void accept(String word, int count, int[] positions);
+    }
+
+    private int[] slots = new int[256]; // номер записи + 1, 0 — пусто
+    private int[] hashes = new int[128];
+    private int[] offsets = new int[128];
+    private int[] lengths = new int[128];
+    private int[] counts = new int[128];
+    private char[] chars = new char[1024];
+    private int size;
+    private int charsUsed;
+    private final int maxPositions;
+    private int[][] positions;
+
+    public TokenCounter() {
+        this(0);
+    }
+
+    public TokenCounter(int maxPositions) {
+        this.maxPositions = maxPositions;
+        this.positions = maxPositions > 0 ? new int[128][] : null;
+    }
+
+    public void add(char[] word, int length, int hash) {
+        add(word, length, hash, -1);
+    }
+
+    // start — смещение слова в тексте; учитывается, только если счётчик запоминает позиции
+    public void add(char[] word, int length, int hash, int start) {
+        int mask = slots.length - 1;
+        int slot = spread(hash) & mask;
+        while (true) {
+            int entry = slots[slot] - 1;
+            if (entry < 0) {
+                insert(slot, word, length, hash);
+                addPosition(size - 1, start);
+                return;
+            }
+            if (hashes[entry] == hash && lengths[entry] == length
+                    && Arrays.equals(chars, offsets[entry], offsets[entry] + length, word, 0, length)) {
+                counts[entry]++;
+                addPosition(entry, start);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    // Число уникальных слов
+    public int size() {
+        return size;
+    }
+
+    public void forEach(WordCountConsumer consumer) {
+        for (int entry = 0; entry < size; entry++) {
+            consumer.accept(new String(chars, offsets[entry], lengths[entry]), counts[entry]);
+        }
+    }
+
+    public void forEach(WordPositionsConsumer consumer) {
+        for (int entry = 0; entry < size; entry++) {
+            int[] wordPositions = positions == null || positions[entry] == null ? new int[0]
+                    : Arrays.copyOf(positions[entry], Math.min(counts[entry], maxPositions));
+            consumer.accept(new String(chars, offsets[entry], lengths[entry]), counts[entry], wordPositions);
+        }
+    }
+
+    // Вхождения считаются в counts, поэтому i-е вхождение слова пишется в ячейку counts - 1
+    private void addPosition(int entry, int start) {
+        if (positions == null || start < 0) {
+            return;
+        }
+        int index = counts[entry] - 1;
+        if (index >= maxPositions) {
+            return;
+        }
+        if (positions[entry] == null) {
+            positions[entry] = new int[Math.min(4, maxPositions)];
+        } else if (index == positions[entry].length) {
+            positions[entry] = Arrays.copyOf(positions[entry], Math.min(index * 2, maxPositions));
+        }
+        positions[entry][index] = start;
+    }
+
+    private void insert(int slot, char[] word, int length, int hash) {
+        if (size == hashes.length) {
+            int capacity = size * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            if (positions != null) {
+                positions = Arrays.copyOf(positions, capacity);
+            }
+        }
+        if (charsUsed + length > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charsUsed + length));
+        }
+        System.arraycopy(word, 0, chars, charsUsed, length);
+        hashes[size] = hash;
+        offsets[size] = charsUsed;
+        lengths[size] = length;
+        counts[size] = 1;
+        charsUsed += length;
+        slots[slot] = ++size;
+        // Таблица заполнена не больше чем наполовину
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int slot = spread(hashes[entry]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry + 1;
+        }
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x45d9f3b;
+    }
+}
@@ -0,0 +1,81 @@
+package searchengine.utils;
+
+import java.util.Arrays;
+
+/**
+ * Однопроходный разбор текста на слова без промежуточных строк.
+ * Текст читается один раз; буквы очередного слова переводятся в нижний регистр прямо
+ * в переиспользуемый буфер, и слово передаётся обработчику вместе с хешем и алфавитом.
+ * Слово — непрерывная последовательность букв одного алфавита (кириллица или латиница),
+ * поэтому каждое слово можно сразу отправить в нужную морфологию.
+ * Экземпляр не потокобезопасен: буфер общий для всех слов одного вызова.
+ */
+public final class Tokenizer {
+    private static final int NONE = 0;
+    private static final int LATIN = 1;
+    private static final int CYRILLIC = 2;
+
+    private char[] buffer = new char[32];
+
+    /**
+     * Обработчик слова. chars действителен только во время вызова;
+     * start и end — границы слова в исходном тексте.
+     */
+    @FunctionalInterface
+    public interface TokenHandler {
+        void token(char[] chars, int length, int hash, boolean cyrillic, int start, int end);
+    }
+
+    public void tokenize(CharSequence text, TokenHandler handler) {
+        int length = 0;
+        int hash = 0;
+        int script = NONE;
+        int start = 0;
+        int textLength = text.length();
+        for (int i = 0; i < textLength; i++) {
+            char c = text.charAt(i);
+            char lower;
+            int charScript;
+            if (c >= 'a' && c <= 'z') {
+                lower = c;
+                charScript = LATIN;
+            } else if (c >= 'A' && c <= 'Z') {
+                lower = (char) (c + ('a' - 'A'));
+                charScript = LATIN;
+            } else if (c >= 'а' && c <= 'я' || c == 'ё') {
+                lower = c;
+                charScript = CYRILLIC;
+            } else if (c >= 'А' && c <= 'Я') {
+                lower = (char) (c + ('а' - 'А'));
+                charScript = CYRILLIC;
+            } else if (c == 'Ё') {
+                lower = 'ё';
+                charScript = CYRILLIC;
+            } else {
+                lower = 0;
+                charScript = NONE;
+            }
+
+            if (charScript != script && length > 0) {
+                handler.token(buffer, length, hash, script == CYRILLIC, start, i);
+                length = 0;
+                hash = 0;
+            }
+            script = charScript;
+            if (charScript == NONE) {
+                continue;
+            }
+            if (length == 0) {
+                start = i;
+            }
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, length * 2);
+            }
+            buffer[length++] = lower;
+            hash = 31 * hash + lower;
+        }
+        if (length > 0) {
+            handler.token(buffer, length, hash, script == CYRILLIC, start, textLength);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package searchengine.utils;
+
+/**
+ * 64-битный хеш строки (FNV-1a с финальным перемешиванием из MurmurHash3).
+ * Ноль никогда не возвращается: он обозначает пустую ячейку в таблицах.
+ */
+public final class UrlHash {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private UrlHash() {
+    }
+
+    public static long hash(CharSequence value) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= FNV_PRIME;
+        }
+        h = mix(h);
+        return h == 0 ? 1 : h;
+    }
+
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,70 @@
+package searchengine.utils;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+
+/**
+ * Приведение URL к единому виду, чтобы одна и та же страница
+ * не попадала в обход под разными написаниями.
+ */
+public final class UrlNormalizer {
+
+    private UrlNormalizer() {
+    }
+
+    // Абсолютный URL ссылки href относительно адреса страницы или null, если ссылку нельзя разобрать
+    public static String resolve(URI base, String href) {
+        try {
+            return base.resolve(new URI(href.replace(" ", "%20"))).toString();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Ключ страницы в таблице page: путь вместе со строкой запроса, как их различает обход
+     * (/a?p=1 и /a?p=2 — разные страницы). url должен быть нормализован.
+     */
+    public static String pathOf(String url) {
+        URI uri = URI.create(url);
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        return uri.getRawQuery() == null || uri.getRawQuery().isEmpty() ? path : path + "?" + uri.getRawQuery();
+    }
+
+    // Возвращает нормализованный URL или null, если его нельзя разобрать
+    public static String normalize(String url) {
+        if (url == null) {
+            return null;
+        }
+        try {
+            URI uri = new URI(url.trim()).normalize();
+            String scheme = uri.getScheme();
+            String host = uri.getHost();
+            if (scheme == null || host == null) {
+                return null;
+            }
+            scheme = scheme.toLowerCase(Locale.ROOT);
+            int port = uri.getPort();
+            if (("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443)) {
+                port = -1;
+            }
+            String path = uri.getRawPath();
+            String query = uri.getRawQuery();
+
+            StringBuilder normalized = new StringBuilder(url.length())
+                    .append(scheme).append("://").append(host.toLowerCase(Locale.ROOT));
+            if (port != -1) {
+                normalized.append(':').append(port);
+            }
+            normalized.append(path == null || path.isEmpty() ? "/" : path);
+            if (query != null && !query.isEmpty()) {
+                normalized.append('?').append(query);
+            }
+            // Фрагмент (#...) отбрасываем: он не меняет загружаемую страницу
+            return normalized.toString();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package searchengine.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Множество посещённых URL одного сайта.
+ * Вместо строк хранятся 64-битные хеши нормализованных URL в открытых хеш-таблицах,
+ * разбитых на сегменты по старшим битам хеша; проверка и вставка выполняются
+ * одной операцией CAS без блокировок. Бюджет памяти — потолок, а не начальный размер:
+ * таблицы начинаются с нескольких килобайт и удваиваются по мере заполнения.
+ * Блокировку берёт только удвоение сегмента; вставки в него в это время ждут её.
+ * Когда таблицы достигли бюджета, новые URL учитываются в фильтре Блума
+ * (если он включён; создаётся при первом переполнении): обход продолжается,
+ * но небольшая доля страниц может быть ошибочно принята за посещённые.
+ */
+public class VisitedUrlSet {
+    private static final Logger logger = LoggerFactory.getLogger(VisitedUrlSet.class);
+    private static final double MAX_LOAD_FACTOR = 0.75;
+    private static final int MIN_CAPACITY = 1 << 10;
+    private static final int SEGMENT_BITS = 6;
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+    // Ячейка старой таблицы, уже перенесённая при удвоении: вставка уходит в новую таблицу
+    private static final long MOVED = Long.MIN_VALUE;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final int maxSegmentCapacity;
+    private final long bloomBytes;
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile BloomFilter overflow;
+    private final ReentrantLock overflowLock = new ReentrantLock();
+    private final AtomicInteger overflowSize = new AtomicInteger();
+    private final AtomicBoolean budgetWarningLogged = new AtomicBoolean();
+
+    // bloomShare — доля бюджета под фильтр Блума (0 — без фильтра)
+    public VisitedUrlSet(long memoryBudgetBytes, double bloomShare) {
+        this.bloomBytes = (long) (memoryBudgetBytes * Math.max(0, Math.min(0.9, bloomShare)));
+        long tableSlots = Math.max(MIN_CAPACITY, (memoryBudgetBytes - bloomBytes) / Long.BYTES);
+        int capacity = Integer.highestOneBit((int) Math.min(1 << 30, tableSlots));
+        this.maxSegmentCapacity = Math.max(INITIAL_SEGMENT_CAPACITY, capacity / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(INITIAL_SEGMENT_CAPACITY);
+        }
+    }
+
+    // Отмечает URL посещённым; возвращает true, если он встретился впервые
+    public boolean add(String normalizedUrl) {
+        return addHash(UrlHash.hash(normalizedUrl));
+    }
+
+    public boolean addHash(long hash) {
+        // 0 — пустая ячейка, MOVED — перенесённая: такие хеши сдвигаются на соседнее значение
+        long key = hash == 0 || hash == MOVED ? hash + 1 : hash;
+        Segment segment = segments[(int) (key >>> (Long.SIZE - SEGMENT_BITS))];
+        while (true) {
+            AtomicLongArray table = segment.table;
+            int result = segment.tryAdd(table, key, maxSegmentCapacity);
+            if (result == Segment.ADDED) {
+                size.incrementAndGet();
+                return true;
+            }
+            if (result == Segment.PRESENT) {
+                return false;
+            }
+            if (result == Segment.FULL) {
+                return addToOverflow(key);
+            }
+            if (result == Segment.GROW) {
+                segment.grow(table, maxSegmentCapacity);
+            } else {
+                // Таблица переносится прямо сейчас — ждём окончания и повторяем в новой
+                segment.awaitResize();
+            }
+        }
+    }
+
+    public int size() {
+        return size.get() + overflowSize.get();
+    }
+
+    /**
+     * Копия множества для контрольной точки обхода: хеши из таблиц и биты фильтра Блума.
+     * Вставки, идущие во время копирования, в неё могут не попасть — согласованность
+     * с очередью обхода обеспечивает вызывающий.
+     */
+    public Snapshot snapshot() {
+        long[] hashes = new long[size.get()];
+        int count = 0;
+        for (Segment segment : segments) {
+            // Под блокировкой удвоения в таблице нет перенесённых ячеек
+            segment.resizeLock.lock();
+            try {
+                AtomicLongArray table = segment.table;
+                for (int slot = 0; slot < table.length() && count < hashes.length; slot++) {
+                    long hash = table.get(slot);
+                    if (hash != 0) {
+                        hashes[count++] = hash;
+                    }
+                }
+            } finally {
+                segment.resizeLock.unlock();
+            }
+        }
+        BloomFilter bloom = overflow;
+        return new Snapshot(count == hashes.length ? hashes : Arrays.copyOf(hashes, count),
+                bloom != null ? bloom.words() : new long[0], overflowSize.get());
+    }
+
+    // Восстанавливает посещённые URL из контрольной точки в пустое множество
+    public void restore(Snapshot snapshot) {
+        for (long hash : snapshot.hashes()) {
+            addHash(hash);
+        }
+        if (snapshot.overflowSize() > 0) {
+            BloomFilter bloom = overflowFilter();
+            if (bloom != null && bloom.merge(snapshot.overflow())) {
+                overflowSize.addAndGet(snapshot.overflowSize());
+            } else {
+                // Бюджет памяти изменился: эти URL будут загружены повторно и перезаписаны на месте
+                logger.warn("Фильтр Блума контрольной точки не подходит к текущему бюджету, {} URL забыты",
+                        snapshot.overflowSize());
+            }
+        }
+    }
+
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += (long) segment.table.length() * Long.BYTES;
+        }
+        BloomFilter bloom = overflow;
+        return bytes + (bloom != null ? bloom.memoryBytes() : 0);
+    }
+
+    private boolean addToOverflow(long hash) {
+        if (budgetWarningLogged.compareAndSet(false, true)) {
+            logger.warn("Бюджет памяти множества посещённых URL исчерпан ({} записей){}", size.get(),
+                    bloomBytes > 0 ? ", дальше используется фильтр Блума" : ", новые URL не принимаются");
+        }
+        BloomFilter bloom = overflowFilter();
+        if (bloom != null && bloom.put(hash)) {
+            overflowSize.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    // Фильтр Блума создаётся при первом переполнении: маленьким сайтам он не нужен
+    private BloomFilter overflowFilter() {
+        BloomFilter bloom = overflow;
+        if (bloom == null && bloomBytes > 0) {
+            overflowLock.lock();
+            try {
+                bloom = overflow;
+                if (bloom == null) {
+                    bloom = new BloomFilter(bloomBytes);
+                    overflow = bloom;
+                }
+            } finally {
+                overflowLock.unlock();
+            }
+        }
+        return bloom;
+    }
+
+    public record Snapshot(long[] hashes, long[] overflow, int overflowSize) {
+    }
+
+    /**
+     * Открытая адресация с линейным пробированием; 0 — пустая ячейка. Удвоение переносит ячейки
+     * по одной, закрывая пустые меткой MOVED: вставка, дошедшая до такой ячейки, повторяется
+     * в новой таблице, а занятые ячейки старой таблицы переносятся все, поэтому хеши не теряются.
+     * Блокировка ReentrantLock, а не synchronized: множество вызывается из виртуальных потоков обхода.
+     */
+    private static final class Segment {
+        static final int ADDED = 0;
+        static final int PRESENT = 1;
+        static final int GROW = 2;
+        static final int FULL = 3;
+        static final int RESIZING = 4;
+
+        private volatile AtomicLongArray table;
+        private final AtomicInteger size = new AtomicInteger();
+        private final ReentrantLock resizeLock = new ReentrantLock();
+
+        Segment(int capacity) {
+            this.table = new AtomicLongArray(capacity);
+        }
+
+        int tryAdd(AtomicLongArray table, long key, int maxCapacity) {
+            int mask = table.length() - 1;
+            int slot = (int) key & mask;
+            // Параллельные вставки могут заполнить таблицу сверх нормы: обход ограничен её длиной
+            for (int probes = 0; probes < table.length(); probes++) {
+                long current = table.get(slot);
+                if (current == key) {
+                    return PRESENT;
+                }
+                if (current == MOVED) {
+                    return RESIZING;
+                }
+                if (current == 0) {
+                    // Удалений нет, поэтому пустая ячейка означает, что хеша в таблице нет
+                    if (size.get() >= table.length() * MAX_LOAD_FACTOR) {
+                        return table.length() >= maxCapacity ? FULL : GROW;
+                    }
+                    if (table.compareAndSet(slot, 0, key)) {
+                        size.incrementAndGet();
+                        return ADDED;
+                    }
+                    // Ячейку заняли раньше: перечитываем её на следующем шаге
+                    probes--;
+                    continue;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return table.length() >= maxCapacity ? FULL : GROW;
+        }
+
+        // Удваивает таблицу, если её ещё не заменил другой поток
+        void grow(AtomicLongArray old, int maxCapacity) {
+            resizeLock.lock();
+            try {
+                if (table != old || old.length() >= maxCapacity) {
+                    return;
+                }
+                AtomicLongArray grown = new AtomicLongArray(old.length() * 2);
+                int mask = grown.length() - 1;
+                for (int i = 0; i < old.length(); i++) {
+                    long hash = old.get(i);
+                    // Пустая ячейка закрывается CAS-ом: вставка в неё после этого невозможна
+                    while (hash == 0 && !old.compareAndSet(i, 0, MOVED)) {
+                        hash = old.get(i);
+                    }
+                    if (hash != 0) {
+                        int slot = (int) hash & mask;
+                        while (grown.get(slot) != 0) {
+                            slot = (slot + 1) & mask;
+                        }
+                        grown.set(slot, hash);
+                    }
+                }
+                table = grown;
+            } finally {
+                resizeLock.unlock();
+            }
+        }
+
+        void awaitResize() {
+            resizeLock.lock();
+            resizeLock.unlock();
+        }
+    }
+}
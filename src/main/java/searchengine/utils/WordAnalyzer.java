@@ -0,0 +1,81 @@
+package searchengine.utils;
+
+import org.apache.lucene.morphology.LuceneMorphology;
+
+import java.util.List;
+
+/**
+ * Разбор отдельного слова: нормальная форма и признак служебной части речи.
+ * Слово отправляется в русскую или английскую морфологию по первой букве;
+ * результаты запоминаются в ограниченном LRU-кеше. Безопасен для общих потоков.
+ */
+public class WordAnalyzer {
+
+    // Служебные части речи в обозначениях русской и английской морфологии
+    private static final List<String> SERVICE_PARTS = List.of(
+            "СОЮЗ", "МЕЖД", "ПРЕДЛ", "ЧАСТ",
+            "CONJ", "PREP", "PART", "PRCL", "INTJ", "ARTICLE"
+    );
+    private static final WordForm UNKNOWN = new WordForm(null, false);
+
+    private final WordFormCache<WordForm> cache;
+
+    public WordAnalyzer(int cacheSize) {
+        this.cache = new WordFormCache<>(cacheSize);
+    }
+
+    // word — слово в нижнем регистре из букв одного алфавита
+    public WordForm analyze(String word) {
+        return cache.get(word, WordAnalyzer::load);
+    }
+
+    // Нормальная форма слова или null для служебных и неизвестных слов
+    public String lemmaOf(String word) {
+        WordForm form = analyze(word);
+        return form.servicePart() ? null : form.lemma();
+    }
+
+    public WordFormCache<WordForm> cache() {
+        return cache;
+    }
+
+    private static WordForm load(String word) {
+        boolean russian = isCyrillic(word.charAt(0));
+        LuceneMorphology morphology = russian ? MorphologyProvider.russian() : MorphologyProvider.english();
+        String normalized = russian ? word.replace('ё', 'е') : word;
+        try {
+            if (!morphology.checkString(normalized)) {
+                return UNKNOWN;
+            }
+            boolean servicePart = false;
+            for (String info : morphology.getMorphInfo(normalized)) {
+                if (isServicePart(info)) {
+                    servicePart = true;
+                    break;
+                }
+            }
+            List<String> normalForms = morphology.getNormalForms(normalized);
+            return normalForms.isEmpty() ? UNKNOWN : new WordForm(normalForms.get(0), servicePart);
+        } catch (RuntimeException e) {
+            // Слово смешанного алфавита или с символами вне словаря
+            return UNKNOWN;
+        }
+    }
+
+    private static boolean isServicePart(String morphInfo) {
+        for (String part : SERVICE_PARTS) {
+            if (morphInfo.contains(part)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCyrillic(char c) {
+        return (c >= 'а' && c <= 'я') || c == 'ё';
+    }
+
+    // lemma == null — слова нет в словаре
+    public record WordForm(String lemma, boolean servicePart) {
+    }
+}
@@ -0,0 +1,88 @@
+package searchengine.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Ограниченный LRU-кеш разбора слов, разделённый на полосы.
+ * Каждая полоса — LinkedHashMap в порядке доступа под своей блокировкой, так что потоки обхода,
+ * разбирающие разные слова, почти не конкурируют. Частота слов в тексте подчиняется закону Ципфа,
+ * поэтому небольшой кеш закрывает подавляющую часть обращений к словарю.
+ */
+public class WordFormCache<V> {
+    private static final int STRIPES = 16;
+
+    private final Stripe<V>[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public WordFormCache(int capacity) {
+        int perStripe = Math.max(1, capacity / STRIPES);
+        stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe<>(perStripe);
+        }
+    }
+
+    /**
+     * Значение для слова; при промахе вычисляется loader-ом вне блокировки.
+     * Два потока могут одновременно посчитать одно и то же слово — результат одинаков, это дешевле блокировки.
+     */
+    public V get(String word, Function<String, V> loader) {
+        Stripe<V> stripe = stripes[(word.hashCode() * 0x9E3779B9) >>> 28];
+        V value = stripe.get(word);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        value = loader.apply(word);
+        stripe.put(word, value);
+        return value;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    // Блокировка ReentrantLock, а не synchronized: кеш вызывается из виртуальных потоков обхода
+    private static final class Stripe<V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, V> entries;
+
+        Stripe(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        V get(String word) {
+            lock.lock();
+            try {
+                return entries.get(word);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void put(String word, V value) {
+            lock.lock();
+            try {
+                entries.put(word, value);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
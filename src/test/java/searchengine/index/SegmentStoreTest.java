@@ -0,0 +1,160 @@
+package searchengine.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentStoreTest {
+    private static final int SITE_ID = 7;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void fullSegmentRoundTrip() throws IOException {
+        SegmentStore store = new SegmentStore(directory);
+        store.writeFull(SITE_ID, 4, fullPostings());
+
+        List<Segment> segments = new SegmentStore(directory).open(SITE_ID);
+
+        assertThat(segments).hasSize(1);
+        Segment segment = segments.get(0);
+        assertThat(segment.isFull()).isTrue();
+        assertThat(segment.getSiteId()).isEqualTo(SITE_ID);
+        assertThat(segment.getPageCount()).isEqualTo(4);
+        assertThat(segment.lemmaCount()).isEqualTo(3);
+        assertThat(segment.lemma(0)).isEqualTo("дом");
+        assertThat(segment.lemma(2)).isEqualTo("ёж");
+        assertThat(segment.coveredPages()).isEmpty();
+        assertPostings(segment.postings("дом"), new int[]{1, 2, 3, 100_000}, new float[]{1f, 2f, 0.5f, 3.25f});
+        assertPostings(segment.postings("кот"), new int[]{2, 5}, new float[]{1f, 2f});
+        assertPostings(segment.postings("ёж"), new int[]{300}, new float[]{7f});
+        assertThat(segment.postings("сад")).isNull();
+        assertThat(segment.postings("")).isNull();
+    }
+
+    @Test
+    void deltaShadowsOlderPostingsOfCoveredPages() throws IOException {
+        SegmentStore store = new SegmentStore(directory);
+        store.writeFull(SITE_ID, 4, fullPostings());
+        // Страница 2 переиндексирована, 4 добавлена, 5 удалена
+        store.writeDelta(SITE_ID, 4, deltaPostings(), new int[]{2, 4, 5});
+
+        List<Segment> segments = new SegmentStore(directory).open(SITE_ID);
+
+        assertThat(segments).hasSize(2);
+        assertThat(segments.get(0).isFull()).isFalse();
+        assertThat(segments.get(0).coveredPages()).containsExactly(2, 4, 5);
+        assertThat(segments.get(0).getGeneration()).isGreaterThan(segments.get(1).getGeneration());
+
+        SegmentSet set = new SegmentSet(segments);
+        assertThat(set.pageCount()).isEqualTo(4);
+        assertPostings(set.postings("дом"), new int[]{1, 2, 3, 4, 100_000}, new float[]{1f, 9f, 0.5f, 4f, 3.25f});
+        assertThat(set.postings("кот")).isNull();
+        assertPostings(set.postings("сад"), new int[]{4}, new float[]{1.5f});
+        assertPostings(set.postings("ёж"), new int[]{300}, new float[]{7f});
+        assertThat(set.lemmas()).containsExactly("дом", "кот", "сад", "ёж");
+    }
+
+    @Test
+    void mergeReplacesSegmentsWithOneFullSegment() throws IOException {
+        SegmentStore store = new SegmentStore(directory);
+        store.writeFull(SITE_ID, 4, fullPostings());
+        Segment delta = store.writeDelta(SITE_ID, 4, deltaPostings(), new int[]{2, 4, 5});
+
+        Segment merged = store.merge(SITE_ID, new SegmentSet(store.open(SITE_ID)));
+
+        assertThat(merged.isFull()).isTrue();
+        assertThat(merged.getGeneration()).isEqualTo(delta.getGeneration());
+        List<Segment> segments = new SegmentStore(directory).open(SITE_ID);
+        assertThat(segments).hasSize(1);
+        try (var files = Files.list(directory.resolve("site-" + SITE_ID))) {
+            assertThat(files).hasSize(1);
+        }
+        Segment reopened = segments.get(0);
+        assertThat(reopened.isFull()).isTrue();
+        assertThat(reopened.getPageCount()).isEqualTo(4);
+        assertThat(reopened.coveredPages()).isEmpty();
+        assertPostings(reopened.postings("дом"), new int[]{1, 2, 3, 4, 100_000}, new float[]{1f, 9f, 0.5f, 4f, 3.25f});
+        assertThat(reopened.postings("кот")).isNull();
+        assertPostings(reopened.postings("сад"), new int[]{4}, new float[]{1.5f});
+        assertPostings(reopened.postings("ёж"), new int[]{300}, new float[]{7f});
+    }
+
+    @Test
+    void deltaAfterMergeStaysNewer() throws IOException {
+        SegmentStore store = new SegmentStore(directory);
+        store.writeFull(SITE_ID, 4, fullPostings());
+        store.writeDelta(SITE_ID, 4, deltaPostings(), new int[]{2, 4, 5});
+        SegmentSet snapshot = new SegmentSet(store.open(SITE_ID));
+        // Дельта, записанная во время слияния
+        SortedMap<String, PostingList> late = new TreeMap<>();
+        late.put("дом", postings(new int[]{6}, new float[]{2f}));
+        store.writeDelta(SITE_ID, 5, late, new int[]{1, 6});
+        store.merge(SITE_ID, snapshot);
+
+        SegmentSet set = new SegmentSet(new SegmentStore(directory).open(SITE_ID));
+
+        assertThat(set.segments()).hasSize(2);
+        assertThat(set.pageCount()).isEqualTo(5);
+        assertPostings(set.postings("дом"), new int[]{2, 3, 4, 6, 100_000}, new float[]{9f, 0.5f, 4f, 2f, 3.25f});
+    }
+
+    @Test
+    void openFailsWithoutFullSegment() throws IOException {
+        SegmentStore store = new SegmentStore(directory);
+        store.writeDelta(SITE_ID, 1, deltaPostings(), new int[]{2, 4});
+
+        assertThatThrownBy(() -> new SegmentStore(directory).open(SITE_ID)).isInstanceOf(IOException.class);
+        assertThat(new SegmentStore(directory).open(SITE_ID + 1)).isEmpty();
+    }
+
+    @Test
+    void writerRejectsUnsortedLemmasAndLeavesNoFile() throws IOException {
+        Path target = directory.resolve("unsorted.seg");
+        try (SegmentWriter writer = new SegmentWriter(target, SITE_ID, 1, true)) {
+            writer.add("кот", postings(new int[]{1}, new float[]{1f}));
+            assertThatThrownBy(() -> writer.add("дом", postings(new int[]{1}, new float[]{1f})))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        try (var files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    private static SortedMap<String, PostingList> fullPostings() {
+        SortedMap<String, PostingList> postings = new TreeMap<>();
+        // 100 000 занимает три байта varint
+        postings.put("дом", postings(new int[]{1, 2, 3, 100_000}, new float[]{1f, 2f, 0.5f, 3.25f}));
+        postings.put("кот", postings(new int[]{2, 5}, new float[]{1f, 2f}));
+        postings.put("ёж", postings(new int[]{300}, new float[]{7f}));
+        return postings;
+    }
+
+    private static SortedMap<String, PostingList> deltaPostings() {
+        SortedMap<String, PostingList> postings = new TreeMap<>();
+        postings.put("дом", postings(new int[]{2, 4}, new float[]{9f, 4f}));
+        postings.put("сад", postings(new int[]{4}, new float[]{1.5f}));
+        return postings;
+    }
+
+    private static PostingList postings(int[] pageIds, float[] ranks) {
+        return new PostingList(pageIds, ranks);
+    }
+
+    private static void assertPostings(PostingList actual, int[] pageIds, float[] ranks) {
+        assertThat(actual).isNotNull();
+        assertThat(actual.pageIds()).containsExactly(pageIds);
+        assertThat(actual.ranks()).containsExactly(ranks);
+    }
+}
@@ -0,0 +1,113 @@
+package searchengine.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HtmlScannerTest {
+
+    @Test
+    void decodesNamedAndNumericEntities() {
+        HtmlScanner scanner = scan("<p>Цена &laquo;100&nbsp;&#8381;&raquo; &amp; &#x41;&#66;</p>");
+
+        assertThat(scanner.text()).isEqualTo("Цена «100 ₽» & AB");
+    }
+
+    @Test
+    void keepsEntityWithoutSemicolonAsText() {
+        HtmlScanner scanner = scan("<p>&copy 2024, a&b &unknown; &amp</p>");
+
+        assertThat(scanner.text()).isEqualTo("&copy 2024, a&b &unknown; &amp");
+    }
+
+    @Test
+    void decodesEntitiesInHref() {
+        HtmlScanner scanner = scan("<a href=\"/search?q=1&amp;page=2\">далее</a>");
+
+        assertThat(scanner.links()).containsExactly("/search?q=1&page=2");
+    }
+
+    @Test
+    void skipsScriptAndStyleUntilTheirEndTag() {
+        HtmlScanner scanner = scan("<p>до</p>"
+                + "<script>if (a</scr) { s = '</scri' + '<a href=\"/js\">'; }</script >"
+                + "<style>p:after { content: '</styl'; }</STYLE>"
+                + "<p>после</p>");
+
+        assertThat(scanner.text()).isEqualTo("до после");
+        assertThat(scanner.links()).isEmpty();
+    }
+
+    @Test
+    void skipsCommentsAndDoctype() {
+        HtmlScanner scanner = scan("<!DOCTYPE html><html><head><title> Заголовок  страницы </title></head>"
+                + "<body><!-- <a href=\"/hidden\">скрыто</a> -- --->видимо<!----><?xml version=\"1.0\"?></body>");
+
+        assertThat(scanner.title()).isEqualTo("Заголовок страницы");
+        assertThat(scanner.text()).isEqualTo("Заголовок страницы видимо");
+        assertThat(scanner.links()).isEmpty();
+    }
+
+    @Test
+    void readsQuotedAndUnquotedHref() {
+        HtmlScanner scanner = scan("<a href=/one>1</a>"
+                + "<a class=x href='/two?a=\"b\"'>2</a>"
+                + "<A HREF = \"/three\" >3</A>"
+                + "<a href=/four>4</a ><a name=top>5</a><a href=\"\">6</a>");
+
+        assertThat(scanner.links()).containsExactly("/one", "/two?a=\"b\"", "/three", "/four");
+    }
+
+    @Test
+    void joinsWordsAcrossInlineTagsOnly() {
+        HtmlScanner scanner = scan("<p>Hel<b>lo</b> wor<div>ld</div><span>при</span>мер<br>текст</p>");
+
+        assertThat(scanner.text()).isEqualTo("Hello wor ld пример текст");
+    }
+
+    @Test
+    void collapsesWhitespace() {
+        HtmlScanner scanner = scan("\n  <p>  один \t\n два&nbsp;&nbsp;три </p>  ");
+
+        assertThat(scanner.text()).isEqualTo("один два три");
+    }
+
+    @Test
+    void chunkedInputGivesSameResultAsWholeDocument() {
+        String html = "<!DOCTYPE html><title>Т&amp;Т</title><!-- c --><p>Hel<b>lo</b> &laquo;мир&raquo;</p>"
+                + "<a href='/a?x=1&amp;y=2'>a</a><script>'</scr'</script><a href=/b>b</a>";
+        HtmlScanner whole = scan(html);
+
+        for (int chunk = 1; chunk <= 7; chunk++) {
+            HtmlScanner chunked = new HtmlScanner();
+            for (int from = 0; from < html.length(); from += chunk) {
+                chunked.feed(html.substring(from, Math.min(html.length(), from + chunk)));
+            }
+            assertThat(chunked.text()).as("куски по %d символов", chunk).isEqualTo(whole.text());
+            assertThat(chunked.title()).isEqualTo(whole.title());
+            assertThat(chunked.links()).isEqualTo(whole.links());
+        }
+        assertThat(whole.links()).containsExactly("/a?x=1&y=2", "/b");
+        assertThat(whole.text()).isEqualTo("Т&Т Hello «мир» a b");
+    }
+
+    @Test
+    void tagAndEntitySplitBetweenCalls() {
+        HtmlScanner scanner = new HtmlScanner();
+        char[] tail = "ef='/x'>ссылка</a> &ra".toCharArray();
+
+        scanner.feed("<p>&la");
+        scanner.feed("quo;текст <a hr");
+        scanner.feed(tail, 0, tail.length);
+        scanner.feed("quo;</p>");
+
+        assertThat(scanner.links()).containsExactly("/x");
+        assertThat(scanner.text()).isEqualTo("«текст ссылка »");
+    }
+
+    private static HtmlScanner scan(String html) {
+        HtmlScanner scanner = new HtmlScanner();
+        scanner.feed(html);
+        return scanner;
+    }
+}